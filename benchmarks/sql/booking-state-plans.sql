@@ -0,0 +1,93 @@
+-- Сравнение планов списка бронирований: старый общий запрос с OR по параметрам
+-- и отдельные запросы по (роль, состояние) из BookingStateRepositoryImpl.
+-- Запуск на пустой базе с применённым server/src/main/resources/schema.sql:
+--   psql -d shareit_bench -f benchmarks/sql/booking-state-plans.sql
+-- Запросы готовятся через PREPARE и выполняются с force_generic_plan - так, как их выполняет JDBC-драйвер
+-- после prepareThreshold: с литералами планировщик свернул бы OR по параметрам до планирования.
+--
+-- Результат на PostgreSQL 14.10 (1M бронирований, 50K вещей, 10K пользователей, пользователь 42):
+--   было, арендатор PAST:    Limit -> Sort -> Gather -> Hash Left Join
+--                            -> Parallel Seq Scan on bookings + Seq Scan on items,
+--                            Rows Removed by Filter: 243000 x 3, shared hit=12006 read=5, 740.7 ms
+--   было, владелец WAITING:  тот же план, shared hit=12011, 497.9 ms
+--   стало, арендатор PAST:   Limit -> Index Scan using bookings_booker_end_idx
+--                            (booker_user_id = $1 AND date_end < now()), shared hit=5 read=1, 0.05 ms
+--   стало, владелец WAITING: Limit -> Sort (top-N) -> Nested Loop -> Index Scan using items_owner_idx
+--                            -> Bitmap Index Scan on bookings_item_status_end_idx, shared hit=114 read=8, 0.3 ms
+--   стало, владелец FUTURE:  Limit -> Sort -> Nested Loop -> Index Scan using items_owner_idx
+--                            -> Bitmap Index Scan on bookings_item_status_from_idx, shared hit=14 read=8, 0.1 ms
+
+INSERT INTO users (email, user_name)
+SELECT 'user' || g || '@bench.ru', 'user' || g
+  FROM generate_series(1, 10000) g;
+
+INSERT INTO items (owner_user_id, item_name, description, available)
+SELECT 1 + (g % 10000), 'item' || g, 'bench item ' || g, true
+  FROM generate_series(1, 50000) g;
+
+INSERT INTO bookings (item_id, booker_user_id, date_from, date_end, status_id)
+SELECT 1 + (g % 50000),
+       1 + ((g * 7) % 10000),
+       now() - interval '2 years' + (g % 1000) * interval '1 day',
+       now() - interval '2 years' + (g % 1000) * interval '1 day' + interval '2 days',
+       g % 4
+  FROM generate_series(1, 1000000) g;
+
+ANALYZE users;
+ANALYZE items;
+ANALYZE bookings;
+
+SET plan_cache_mode = force_generic_plan;
+
+-- Было: один запрос на все состояния и обе роли ($1 - пользователь, $2 - состояние, $3 - только владелец)
+PREPARE old_list(bigint, text, boolean, integer, integer) AS
+SELECT b.*
+  FROM bookings b
+  LEFT JOIN items i ON i.item_id = b.item_id
+ WHERE ((b.booker_user_id = $1 AND $3 = false) OR (i.owner_user_id = $1 AND $3 = true))
+   AND ($2 = 'ALL'
+        OR ($2 = 'CURRENT'  AND now() BETWEEN b.date_from AND b.date_end)
+        OR ($2 = 'FUTURE'   AND now() < b.date_from)
+        OR ($2 = 'PAST'     AND now() > b.date_end)
+        OR ($2 = 'WAITING'  AND b.status_id = 0)
+        OR ($2 = 'REJECTED' AND b.status_id = 2))
+ ORDER BY b.date_end DESC, b.booking_id DESC
+ LIMIT $4 OFFSET $5;
+
+EXPLAIN (ANALYZE, BUFFERS) EXECUTE old_list(42, 'PAST', false, 20, 0);
+EXPLAIN (ANALYZE, BUFFERS) EXECUTE old_list(42, 'WAITING', true, 20, 0);
+
+-- Стало: арендатор, PAST
+PREPARE booker_past(bigint, integer, integer) AS
+SELECT b.*
+  FROM bookings b
+ WHERE b.booker_user_id = $1
+   AND b.date_end < now()
+ ORDER BY b.date_end DESC, b.booking_id DESC
+ LIMIT $2 OFFSET $3;
+
+EXPLAIN (ANALYZE, BUFFERS) EXECUTE booker_past(42, 20, 0);
+
+-- Стало: владелец, WAITING
+PREPARE owner_waiting(bigint, integer, integer) AS
+SELECT b.*
+  FROM bookings b
+  JOIN items i ON i.item_id = b.item_id
+ WHERE i.owner_user_id = $1
+   AND b.status_id = 0
+ ORDER BY b.date_end DESC, b.booking_id DESC
+ LIMIT $2 OFFSET $3;
+
+EXPLAIN (ANALYZE, BUFFERS) EXECUTE owner_waiting(42, 20, 0);
+
+-- Стало: владелец, FUTURE
+PREPARE owner_future(bigint, integer, integer) AS
+SELECT b.*
+  FROM bookings b
+  JOIN items i ON i.item_id = b.item_id
+ WHERE i.owner_user_id = $1
+   AND b.date_from > now()
+ ORDER BY b.date_end DESC, b.booking_id DESC
+ LIMIT $2 OFFSET $3;
+
+EXPLAIN (ANALYZE, BUFFERS) EXECUTE owner_future(42, 20, 0);
@@ -0,0 +1,101 @@
+package ru.practicum.shareit.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.ShareItServer;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Сервер без web-слоя на встроенной H2 (профиль ci) и заполнение базы данными заданного объема.
+// Пользователь i владеет itemsPerOwner вещами и бронирует вещи пользователя i + 1,
+// каждая вещь имеет bookingsPerItem подтвержденных бронирований - половина в прошлом, половина в будущем,
+// и commentsPerItem комментариев арендатора.
+public class BenchmarkContext implements AutoCloseable {
+    private final ConfigurableApplicationContext context;
+
+    public BenchmarkContext() {
+        this(new String[0]);
+    }
+
+    // properties - дополнительные свойства сервера в виде --name=value
+    public BenchmarkContext(String... properties) {
+        List<String> args = new ArrayList<>(List.of("--spring.profiles.active=ci",
+                "--spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1",
+                "--spring.jpa.properties.hibernate.show_sql=false",
+                "--logging.level.root=WARN"));
+        args.addAll(List.of(properties));
+        context = new SpringApplicationBuilder(ShareItServer.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run(args.toArray(new String[0]));
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public void seed(int owners, int itemsPerOwner, int bookingsPerItem, int requestsPerOwner) {
+        seed(owners, itemsPerOwner, bookingsPerItem, requestsPerOwner, 0);
+    }
+
+    public void seed(int owners, int itemsPerOwner, int bookingsPerItem, int requestsPerOwner, int commentsPerItem) {
+        JdbcTemplate jdbc = bean(JdbcTemplate.class);
+        LocalDateTime now = LocalDateTime.now();
+
+        List<Object[]> users = new ArrayList<>();
+        for (long u = 1; u <= owners; u++) {
+            users.add(new Object[]{u, "user" + u + "@bench.ru", "user" + u});
+        }
+        jdbc.batchUpdate("INSERT INTO users (user_id, email, user_name) VALUES (?, ?, ?)", users);
+
+        List<Object[]> requests = new ArrayList<>();
+        for (long u = 1; u <= owners; u++) {
+            for (long r = 0; r < requestsPerOwner; r++) {
+                long id = (u - 1) * requestsPerOwner + r + 1;
+                requests.add(new Object[]{id, "request " + id, u, Timestamp.valueOf(now.minusDays(r))});
+            }
+        }
+        jdbc.batchUpdate("INSERT INTO requests (id, description, requester_id, created) VALUES (?, ?, ?, ?)",
+                requests);
+
+        List<Object[]> items = new ArrayList<>();
+        List<Object[]> bookings = new ArrayList<>();
+        List<Object[]> comments = new ArrayList<>();
+        long requestCount = (long) owners * requestsPerOwner;
+        long bookingId = 1;
+        long commentId = 1;
+        for (long u = 1; u <= owners; u++) {
+            long booker = u % owners + 1;
+            for (long i = 0; i < itemsPerOwner; i++) {
+                long itemId = (u - 1) * itemsPerOwner + i + 1;
+                Long requestId = requestCount > 0 && itemId % 2 == 0 ? itemId % requestCount + 1 : null;
+                items.add(new Object[]{itemId, u, "item" + itemId, "bench item " + itemId, true, requestId});
+                for (long b = 0; b < bookingsPerItem; b++) {
+                    LocalDateTime start = now.plusDays(3 * (b - bookingsPerItem / 2));
+                    bookings.add(new Object[]{bookingId++, itemId, booker,
+                            Timestamp.valueOf(start), Timestamp.valueOf(start.plusDays(1)), 1});
+                }
+                for (long c = 0; c < commentsPerItem; c++) {
+                    comments.add(new Object[]{commentId, "comment " + commentId++, itemId, booker,
+                            Timestamp.valueOf(now.minusDays(c + 1))});
+                }
+            }
+        }
+        jdbc.batchUpdate("INSERT INTO items (item_id, owner_user_id, item_name, description, available, request_id) "
+                + "VALUES (?, ?, ?, ?, ?, ?)", items);
+        jdbc.batchUpdate("INSERT INTO bookings (booking_id, item_id, booker_user_id, date_from, date_end, status_id) "
+                + "VALUES (?, ?, ?, ?, ?, ?)", bookings);
+        jdbc.batchUpdate("INSERT INTO comments (id, text, item_id, author_id, created) VALUES (?, ?, ?, ?, ?)",
+                comments);
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
@@ -0,0 +1,75 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.error.exceptions.BadRequestException;
+import ru.practicum.shareit.error.exceptions.NoContentException;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookingServiceBenchmark {
+    @Param({"10"})
+    private int owners;
+    @Param({"10", "100"})
+    private int itemsPerOwner;
+    @Param({"10"})
+    private int bookingsPerItem;
+
+    private BenchmarkContext context;
+    private BookingService bookingService;
+    private Booking booking;
+    private long ownerId;
+    private long bookerId;
+
+    @Setup
+    public void setUp() throws NoContentException {
+        context = new BenchmarkContext();
+        context.seed(owners, itemsPerOwner, bookingsPerItem, 0);
+        bookingService = context.bean(BookingService.class);
+        booking = bookingService.getById(1L);
+        ownerId = booking.getItem().getOwner().getId();
+        bookerId = booking.getBooker().getId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public BookingStatus getStateByUserApprove() throws BadRequestException, NoContentException {
+        return bookingService.getStateByUser(booking, ownerId, "true");
+    }
+
+    @Benchmark
+    public BookingStatus getStateByUserCancel() throws BadRequestException, NoContentException {
+        return bookingService.getStateByUser(booking, bookerId, "false");
+    }
+
+    @Benchmark
+    public List<BookingResponseDto> getFromOwnerAll() throws BadRequestException, NoContentException {
+        return bookingService.getFromUserByRequest(ownerId, "ALL", true, Optional.empty(), Optional.empty());
+    }
+}
@@ -0,0 +1,75 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.error.exceptions.NoContentException;
+import ru.practicum.shareit.item.dto.ItemResponseDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.item.storage.ItemRepository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// getAllUserItems - список вещей владельца с группировкой комментариев и бронирований по вещам,
+// setBookingsDto - выбор последнего/следующего бронирования одной вещи
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemServiceBenchmark {
+    @Param({"10"})
+    private int owners;
+    @Param({"10", "100"})
+    private int itemsPerOwner;
+    @Param({"10"})
+    private int bookingsPerItem;
+    @Param({"5"})
+    private int commentsPerItem;
+
+    private BenchmarkContext context;
+    private ItemService itemService;
+    private Item item;
+    private List<Booking> bookings;
+
+    @Setup
+    public void setUp() {
+        context = new BenchmarkContext();
+        context.seed(owners, itemsPerOwner, bookingsPerItem, 0, commentsPerItem);
+        itemService = context.bean(ItemService.class);
+        item = context.bean(ItemRepository.class).findById(1L).orElseThrow();
+        bookings = context.bean(BookingRepository.class)
+                .findAllByItemAndStatusOrderByEndAsc(item, BookingStatus.APPROVED);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<ItemResponseDto> getAllUserItems() throws NoContentException {
+        return itemService.getAllUserItems(1L, Optional.empty(), Optional.empty());
+    }
+
+    @Benchmark
+    public Item setBookingsDto() {
+        return itemService.setBookingsDto(item, bookings);
+    }
+}
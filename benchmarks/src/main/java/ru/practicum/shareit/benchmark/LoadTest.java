@@ -0,0 +1,129 @@
+package ru.practicum.shareit.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+// Нагрузка на запущенный шлюз или сервер: N клиентов в замкнутом цикле (запрос - ответ - следующий запрос).
+// Сравнение режимов: прогнать по разу с shareit.executor.mode=platform и virtual (и shareit-server.client.mode).
+// Для 20000 клиентов поднять ulimit -n и server.tomcat.max-connections, иначе лишние соединения отклоняются.
+public final class LoadTest {
+    private static final int BUCKETS = 600_000;
+    private static final long BUCKET_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private LoadTest() {
+    }
+
+    // url=http://localhost:8080/users clients=200,2000,20000 seconds=30 warmup=5 user=1
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] pair = arg.split("=", 2);
+            options.put(pair[0], pair.length > 1 ? pair[1] : "");
+        }
+        URI uri = URI.create(options.getOrDefault("url", "http://localhost:8080/users"));
+        List<Integer> levels = Arrays.stream(options.getOrDefault("clients", "200,2000,20000").split(","))
+                .map(String::trim)
+                .map(Integer::valueOf)
+                .collect(Collectors.toList());
+        int seconds = Integer.parseInt(options.getOrDefault("seconds", "30"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "5"));
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("X-Sharer-User-Id", options.getOrDefault("user", "1"))
+                .header("Accept", "application/json")
+                .timeout(Duration.ofSeconds(60))
+                .GET()
+                .build();
+
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(executor)
+                .build();
+        System.out.printf("%s, %d s (прогрев %d s)%n", uri, seconds, warmup);
+        System.out.printf("%8s %10s %10s %10s %10s %8s%n", "clients", "req/s", "p50 ms", "p99 ms", "max ms", "errors");
+        for (int clients : levels) {
+            Recorder recorder = new Recorder();
+            long measureFrom = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmup);
+            long measureTo = measureFrom + TimeUnit.SECONDS.toNanos(seconds);
+            CountDownLatch done = new CountDownLatch(clients);
+            for (int i = 0; i < clients; i++) {
+                next(client, request, recorder, measureFrom, measureTo, done);
+            }
+            done.await();
+            System.out.printf("%8d %10.1f %10.2f %10.2f %10.2f %8d%n", clients,
+                    (double) recorder.count() / seconds, recorder.percentile(0.50), recorder.percentile(0.99),
+                    recorder.percentile(1.0), recorder.errors.sum());
+            if (recorder.lastError.get() != null) {
+                System.out.printf("%8s последняя ошибка: %s%n", "", recorder.lastError.get());
+            }
+        }
+        executor.shutdownNow();
+    }
+
+    private static void next(HttpClient client, HttpRequest request, Recorder recorder,
+                             long measureFrom, long measureTo, CountDownLatch done) {
+        long start = System.nanoTime();
+        if (start >= measureTo) {
+            done.countDown();
+            return;
+        }
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+            if (start >= measureFrom) {
+                recorder.record(System.nanoTime() - start, error != null ? error.toString()
+                        : response.statusCode() >= 400 ? "HTTP " + response.statusCode() : null);
+            }
+            next(client, request, recorder, measureFrom, measureTo, done);
+        });
+    }
+
+    // Гистограмма задержек с шагом 0.1 мс до 60 с
+    private static class Recorder {
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS + 1);
+        private final LongAdder errors = new LongAdder();
+        private final AtomicReference<String> lastError = new AtomicReference<>();
+
+        void record(long nanos, String error) {
+            buckets.incrementAndGet((int) Math.min(nanos / BUCKET_NANOS, BUCKETS));
+            if (error != null) {
+                errors.increment();
+                lastError.set(error);
+            }
+        }
+
+        long count() {
+            long count = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                count += buckets.get(i);
+            }
+            return count;
+        }
+
+        double percentile(double quantile) {
+            long rank = (long) Math.ceil(count() * quantile);
+            long seen = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                seen += buckets.get(i);
+                if (seen >= rank && seen > 0) {
+                    return (i + 1) * BUCKET_NANOS / 1_000_000.0;
+                }
+            }
+            return 0;
+        }
+    }
+}
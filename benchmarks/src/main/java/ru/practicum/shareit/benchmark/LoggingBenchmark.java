@@ -0,0 +1,61 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.error.exceptions.NoContentException;
+import ru.practicum.shareit.item.dto.ItemResponseDto;
+import ru.practicum.shareit.item.service.ItemService;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// getAllUserItems с уровнем логов сервера INFO, как в рабочей конфигурации, и синхронным или асинхронным выводом.
+// Логи пишутся в консоль форка: -Dbench.args="LoggingBenchmark -o /tmp/bench.txt"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class LoggingBenchmark {
+    @Param({"sync", "async"})
+    private String loggingMode;
+    @Param({"entity", "projection"})
+    private String readMode;
+
+    private BenchmarkContext context;
+    private ItemService itemService;
+
+    @Setup
+    public void setUp() {
+        context = new BenchmarkContext(
+                "--logging.level.ru.practicum.shareit=INFO",
+                "--shareit.logging.mode=" + loggingMode,
+                "--shareit.read.mode=" + readMode);
+        context.seed(10, 100, 4, 0);
+        itemService = context.bean(ItemService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<ItemResponseDto> getAllUserItems() throws NoContentException {
+        return itemService.getAllUserItems(1L, Optional.empty(), Optional.empty());
+    }
+}
@@ -0,0 +1,77 @@
+package ru.practicum.shareit.benchmark;
+
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.config.ModelMapperConfig;
+import ru.practicum.shareit.item.dto.ItemResponseDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Сравнение ModelMapper (reflective) и ручных мапперов (direct) на одном объекте и на списке из 1000.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+    @Param({"reflective", "direct"})
+    private String mode;
+
+    private ModelMapper mapper;
+    private Booking booking;
+    private Item item;
+    private List<Booking> bookings;
+
+    @Setup
+    public void setUp() {
+        mapper = new ModelMapperConfig().modelMapper(mode);
+        User owner = User.builder().id(1L).name("owner").email("owner@mail.ru").build();
+        User booker = User.builder().id(2L).name("booker").email("booker@mail.ru").build();
+        item = Item.builder().id(3L).owner(owner).name("item").description("descr").available(true).build();
+        LocalDateTime now = LocalDateTime.now();
+        booking = Booking.builder().id(4L).item(item).booker(booker)
+                .start(now).end(now.plusDays(1)).status(BookingStatus.APPROVED).build();
+        bookings = new ArrayList<>();
+        for (long i = 0; i < 1000; i++) {
+            bookings.add(Booking.builder().id(i).item(item).booker(booker)
+                    .start(now.plusDays(i)).end(now.plusDays(i + 1)).status(BookingStatus.APPROVED).build());
+        }
+    }
+
+    @Benchmark
+    public BookingResponseDto booking() {
+        return mapper.map(booking, BookingResponseDto.class);
+    }
+
+    @Benchmark
+    public ItemResponseDto item() {
+        return mapper.map(item, ItemResponseDto.class);
+    }
+
+    @Benchmark
+    public List<BookingResponseDto> bookingList() {
+        return bookings.stream()
+                .map(b -> mapper.map(b, BookingResponseDto.class))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,84 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.error.exceptions.BadRequestException;
+import ru.practicum.shareit.error.exceptions.NoContentException;
+import ru.practicum.shareit.item.dto.ItemResponseDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.dto.UserResponseDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// Списки только для чтения через сущности (entity) и через DTO-проекции (projection).
+// Выделение памяти на запрос - gc.alloc.rate.norm: -Dbench.args="ReadPathBenchmark -prof gc"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadPathBenchmark {
+    @Param({"entity", "projection"})
+    private String readMode;
+    @Param({"100"})
+    private int owners;
+    @Param({"100"})
+    private int itemsPerOwner;
+    @Param({"4"})
+    private int bookingsPerItem;
+
+    private BenchmarkContext context;
+    private UserService userService;
+    private ItemService itemService;
+    private BookingService bookingService;
+
+    @Setup
+    public void setUp() {
+        context = new BenchmarkContext("--shareit.read.mode=" + readMode);
+        context.seed(owners, itemsPerOwner, bookingsPerItem, 0);
+        userService = context.bean(UserService.class);
+        itemService = context.bean(ItemService.class);
+        bookingService = context.bean(BookingService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<UserResponseDto> getAllUsers() {
+        return userService.getAllUsers();
+    }
+
+    @Benchmark
+    public List<ItemResponseDto> getAllUserItems() throws NoContentException {
+        return itemService.getAllUserItems(1L, Optional.empty(), Optional.empty());
+    }
+
+    @Benchmark
+    public List<ItemResponseDto> searchItemByName() {
+        return itemService.searchItemByName(1L, "item1", Optional.of(0), Optional.of(100));
+    }
+
+    @Benchmark
+    public List<BookingResponseDto> getBookingsByOwner() throws BadRequestException, NoContentException {
+        return bookingService.getFromUserByRequest(1L, "ALL", true, Optional.empty(), Optional.empty());
+    }
+}
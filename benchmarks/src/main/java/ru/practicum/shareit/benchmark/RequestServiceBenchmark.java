@@ -0,0 +1,62 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.error.exceptions.NoContentException;
+import ru.practicum.shareit.request.model.RequestItem;
+import ru.practicum.shareit.request.service.RequestService;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// Оба метода проходят через setLinkedItems - привязку вещей, созданных по запросам
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestServiceBenchmark {
+    @Param({"10"})
+    private int owners;
+    @Param({"100", "1000"})
+    private int itemsPerOwner;
+    @Param({"10"})
+    private int requestsPerOwner;
+
+    private BenchmarkContext context;
+    private RequestService requestService;
+
+    @Setup
+    public void setUp() {
+        context = new BenchmarkContext();
+        context.seed(owners, itemsPerOwner, 0, requestsPerOwner);
+        requestService = context.bean(RequestService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<RequestItem> getAll() throws NoContentException {
+        return requestService.getAll(1L, Optional.empty(), Optional.empty());
+    }
+
+    @Benchmark
+    public List<RequestItem> getAllUserItemRequests() throws NoContentException {
+        return requestService.getAllUserItemRequests(1L);
+    }
+}
@@ -1,15 +1,21 @@
 package ru.practicum.shareit.Item;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.cloud.sleuth.Tracer;
+import org.springframework.cloud.sleuth.propagation.Propagator;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.Item.comment.dto.ItemCommentRequestDto;
 import ru.practicum.shareit.Item.dto.ItemRequestDto;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.ReadCache;
 import ru.practicum.shareit.error.exceptions.BadRequestException;
 
 import java.util.Map;
@@ -20,16 +26,25 @@ public class ItemClient extends BaseClient {
     private static final String API_PREFIX = "/items";
 
     @Autowired
-    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                      ClientHttpRequestFactory requestFactory,
+                      WebClient.Builder webClientBuilder,
+                      @Value("${shareit-server.client.mode:blocking}") String mode,
+                      ObjectProvider<Tracer> tracer, ObjectProvider<Propagator> propagator,
+                      ObjectProvider<ReadCache> readCache) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> requestFactory)
+                        .build(),
+                "reactive".equalsIgnoreCase(mode) ? webClientBuilder.baseUrl(serverUrl + API_PREFIX).build() : null,
+                tracer,
+                propagator,
+                readCache
         );
     }
 
-    public ResponseEntity<Object> getAllUserItems(
+    public Mono<ResponseEntity<Object>> getAllUserItems(
             long userId,
             Optional<Integer> from,
             Optional<Integer> size
@@ -50,33 +65,33 @@ public class ItemClient extends BaseClient {
                     "size", ""
             );
         }
-        return get("?from={from}&size={size}", userId, parameters);
+        return getCached("?from={from}&size={size}", userId, parameters, null, ReadCache.ITEMS);
     }
 
-    public ResponseEntity<Object> getItemById(Long id, Long userId) {
-        return get("/" + id, userId);
+    public Mono<ResponseEntity<Object>> getItemById(Long id, Long userId, String ifNoneMatch) {
+        return getCached("/" + id, userId, null, ifNoneMatch, ReadCache.item(id));
     }
 
-    public ResponseEntity<Object> createItem(Long userId, ItemRequestDto requestDto) {
+    public Mono<ResponseEntity<Object>> createItem(Long userId, ItemRequestDto requestDto) {
         return post("", userId, requestDto);
     }
 
-    public ResponseEntity<Object> updateItem(Long userId, Long itemId, ItemRequestDto requestDto) {
+    public Mono<ResponseEntity<Object>> updateItem(Long userId, Long itemId, ItemRequestDto requestDto) {
         Map<String, Object> parameters = Map.of(
                 "itemId", itemId
         );
         return patch("/{itemId}", userId, parameters, requestDto);
     }
 
-    public ResponseEntity<Object> delete(Long userId, Long itemId) {
+    public Mono<ResponseEntity<Object>> delete(Long userId, Long itemId) {
         return post("/" + itemId, userId);
     }
 
-    public ResponseEntity<Object> searchItemByName(Long userId, String text) {
-        return get("/search?text=" + text, userId);
+    public Mono<ResponseEntity<Object>> searchItemByName(Long userId, String text) {
+        return getCached("/search?text=" + text, userId, null, null, ReadCache.ITEMS);
     }
 
-    public ResponseEntity<Object> addComment(Long userId, ItemCommentRequestDto inComment, Long itemId) {
+    public Mono<ResponseEntity<Object>> addComment(Long userId, ItemCommentRequestDto inComment, Long itemId) {
         return post("/" + itemId + "/comment", userId, inComment);
     }
 
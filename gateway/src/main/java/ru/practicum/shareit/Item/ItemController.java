@@ -2,10 +2,12 @@ package ru.practicum.shareit.Item;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.Item.comment.dto.ItemCommentRequestDto;
 import ru.practicum.shareit.Item.dto.ItemRequestDto;
 import ru.practicum.shareit.dtoValidateGroups.GroupCreate;
@@ -26,7 +28,7 @@ public class ItemController {
     private static final String OWNER_ID_HOLDER = "X-Sharer-User-Id";
 
     @GetMapping()
-    public ResponseEntity<Object> getAllUserItems(
+    public Mono<ResponseEntity<Object>> getAllUserItems(
             @RequestHeader(OWNER_ID_HOLDER) long userId,
             @RequestParam(value = "from", required = false)
             @Min(value = 0, message = "The value must be positive")
@@ -38,21 +40,22 @@ public class ItemController {
         try {
             return itemClient.getAllUserItems(userId, from, size);
         } catch (BadRequestException e) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(Collections.singletonMap("error", e.getMessage()));
+            return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Collections.singletonMap("error", e.getMessage())));
         }
     }
 
     @GetMapping(value = "/{id}")
-    public ResponseEntity<Object> getItem(
+    public Mono<ResponseEntity<Object>> getItem(
             @RequestHeader(OWNER_ID_HOLDER) long userId,
-            @PathVariable long id) {
+            @PathVariable long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.info("Got Item request");
-        return itemClient.getItemById(id, userId);
+        return itemClient.getItemById(id, userId, ifNoneMatch);
     }
 
     @PostMapping(consumes = "application/json;charset=UTF-8", produces = "application/json;")
-    public ResponseEntity<Object> create(
+    public Mono<ResponseEntity<Object>> create(
             @RequestHeader(OWNER_ID_HOLDER) long userId,
             @Validated(GroupCreate.class) @RequestBody ItemRequestDto itemRequestDto
     ) {
@@ -61,7 +64,7 @@ public class ItemController {
     }
 
     @PatchMapping(path = "/{itemId}", consumes = "application/json;charset=UTF-8", produces = "application/json;")
-    public ResponseEntity<Object> update(
+    public Mono<ResponseEntity<Object>> update(
             @RequestHeader(OWNER_ID_HOLDER) long userId,
             @PathVariable long itemId,
             @Valid @RequestBody ItemRequestDto itemRequestDto
@@ -71,20 +74,20 @@ public class ItemController {
     }
 
     @DeleteMapping(value = "/{id}", produces = "application/json;")
-    public ResponseEntity<Object> delete(@RequestHeader(OWNER_ID_HOLDER) long userId, @PathVariable long id) {
+    public Mono<ResponseEntity<Object>> delete(@RequestHeader(OWNER_ID_HOLDER) long userId, @PathVariable long id) {
         log.info("Got delete item {} request", id);
         return itemClient.delete(userId, id);
     }
 
     @GetMapping(value = "/search")
-    public ResponseEntity<Object> searchItemByName(@RequestHeader(OWNER_ID_HOLDER) long userId,
+    public Mono<ResponseEntity<Object>> searchItemByName(@RequestHeader(OWNER_ID_HOLDER) long userId,
                                                    @RequestParam(value = "text") String text) {
         log.info("Got search Item request");
         return itemClient.searchItemByName(userId, text);
     }
 
     @PostMapping("/{itemId}/comment")
-    public ResponseEntity<Object> createComment(@RequestHeader(OWNER_ID_HOLDER) Long userId,
+    public Mono<ResponseEntity<Object>> createComment(@RequestHeader(OWNER_ID_HOLDER) Long userId,
                                                 @Validated @RequestBody ItemCommentRequestDto inComment,
                                                 @PathVariable Long itemId) {
         log.info("Got add post request to item {} --> {} ", itemId, inComment.toString());
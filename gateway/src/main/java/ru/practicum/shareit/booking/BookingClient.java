@@ -1,17 +1,24 @@
 package ru.practicum.shareit.booking;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.cloud.sleuth.Tracer;
+import org.springframework.cloud.sleuth.propagation.Propagator;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.booking.dto.BookItemRequestDto;
 import ru.practicum.shareit.booking.dto.BookingRequestStatus;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.ReadCache;
 import ru.practicum.shareit.error.exceptions.BadRequestException;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -19,21 +26,36 @@ import java.util.Optional;
 public class BookingClient extends BaseClient {
     private static final String API_PREFIX = "/bookings";
 
+    // Тот же предел, что shareit.booking.batch.max-size сервера: лишний пакет отсекается до запроса к серверу
+    private final int batchMaxSize;
+
     @Autowired
-    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                         ClientHttpRequestFactory requestFactory,
+                         WebClient.Builder webClientBuilder,
+                         @Value("${shareit-server.client.mode:blocking}") String mode,
+                         @Value("${shareit-server.booking.batch.max-size:100}") int batchMaxSize,
+                         ObjectProvider<Tracer> tracer, ObjectProvider<Propagator> propagator,
+                         ObjectProvider<ReadCache> readCache) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> requestFactory)
+                        .build(),
+                "reactive".equalsIgnoreCase(mode) ? webClientBuilder.baseUrl(serverUrl + API_PREFIX).build() : null,
+                tracer,
+                propagator,
+                readCache
         );
+        this.batchMaxSize = batchMaxSize;
     }
 
-    public ResponseEntity<Object> getBookings(
+    public Mono<ResponseEntity<Object>> getBookings(
             long userId,
             BookingRequestStatus state,
             Optional<Integer> from,
             Optional<Integer> size,
+            String cursor,
             Boolean fromOwner
     ) throws BadRequestException {
         String pathPrefix = "";
@@ -48,6 +70,16 @@ public class BookingClient extends BaseClient {
             throw new BadRequestException(msg);
         }
 
+        // Курсор сервера непрозрачен: передаем как есть, следующий отдается в заголовке X-Next-Cursor
+        if (cursor != null) {
+            parameters = Map.of(
+                    "state", state.name(),
+                    "cursor", cursor,
+                    "size", size.isPresent() ? size.get() : ""
+            );
+            return get(pathPrefix + "?state={state}&cursor={cursor}&size={size}", userId, parameters);
+        }
+
         if (from.isPresent() && size.isPresent()) {
             parameters = Map.of(
                     "state", state.name(),
@@ -66,19 +98,30 @@ public class BookingClient extends BaseClient {
     }
 
 
-    public ResponseEntity<Object> add(long userId, BookItemRequestDto requestDto) {
+    public Mono<ResponseEntity<Object>> add(long userId, BookItemRequestDto requestDto) {
         return post("", userId, requestDto);
     }
 
-    public ResponseEntity<Object> getFromBookerOrOwner(long userId, Long bookingId) {
-        return get("/" + bookingId, userId);
+    public Mono<ResponseEntity<Object>> addBatch(long userId, List<BookItemRequestDto> requestDtos)
+            throws BadRequestException {
+        if (requestDtos.isEmpty()) {
+            throw new BadRequestException("Пакет бронирований пуст");
+        }
+        if (requestDtos.size() > batchMaxSize) {
+            throw new BadRequestException(String.format("В пакете больше %d бронирований", batchMaxSize));
+        }
+        return post("/batch", userId, requestDtos);
+    }
+
+    public Mono<ResponseEntity<Object>> getFromBookerOrOwner(long userId, Long bookingId, String ifNoneMatch) {
+        return getIfNoneMatch("/" + bookingId, userId, ifNoneMatch);
     }
 
-    public ResponseEntity<Object> setState(long userId, Long bookingId, String approved) {
+    public Mono<ResponseEntity<Object>> setState(long userId, Long bookingId, String approved) {
         return patch("/" + bookingId + "?approved=" + approved, userId, approved);
     }
 
-    public ResponseEntity<Object> getFromUser(Long userId,
+    public Mono<ResponseEntity<Object>> getFromUser(Long userId,
                                               BookingRequestStatus state,
                                               Optional<Integer> from,
                                               Optional<Integer> size) {
@@ -92,7 +135,7 @@ public class BookingClient extends BaseClient {
         } else return get("", userId);
     }
 
-    public ResponseEntity<Object> getFromOwner(Long userId,
+    public Mono<ResponseEntity<Object>> getFromOwner(Long userId,
                                                BookingRequestStatus state,
                                                Optional<Integer> from,
                                                Optional<Integer> size) {
@@ -2,17 +2,22 @@ package ru.practicum.shareit.booking;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.booking.dto.BookItemRequestDto;
 import ru.practicum.shareit.booking.dto.BookingRequestStatus;
 import ru.practicum.shareit.error.exceptions.BadRequestException;
 
+import javax.validation.ConstraintViolationException;
 import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 @Controller
@@ -26,57 +31,83 @@ public class BookingController {
 
 
     @GetMapping
-    public ResponseEntity<Object> getBookings(@RequestHeader(OWNER_ID_HOLDER) long userId,
+    public Mono<ResponseEntity<Object>> getBookings(@RequestHeader(OWNER_ID_HOLDER) long userId,
                                               @RequestParam(name = "state", defaultValue = "all") String stateParam,
                                               @RequestParam(name = "from", required = false)
                                               Optional<Integer> from,
                                               @RequestParam(name = "size", required = false)
-                                              Optional<Integer> size) throws BadRequestException {
-        log.info("Get booking with state {}, userId={}, from={}, size={}", stateParam, userId, from, size);
+                                              Optional<Integer> size,
+                                              @RequestParam(name = "cursor", required = false)
+                                              String cursor) throws BadRequestException {
+        log.info("Get booking with state {}, userId={}, from={}, size={}, cursor={}",
+                stateParam, userId, from, size, cursor);
         try {
             BookingRequestStatus state = BookingRequestStatus.getValue(stateParam);
-            return bookingClient.getBookings(userId, state, from, size, false);
+            return bookingClient.getBookings(userId, state, from, size, cursor, false);
         } catch (BadRequestException e) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Collections.singletonMap("error", e.getMessage()));
+            return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Collections.singletonMap("error", e.getMessage())));
         }
     }
 
     @GetMapping("/owner")
-    public ResponseEntity<Object> getOwnerBookings(@RequestHeader(OWNER_ID_HOLDER) long userId,
+    public Mono<ResponseEntity<Object>> getOwnerBookings(@RequestHeader(OWNER_ID_HOLDER) long userId,
                                                    @RequestParam(name = "state", defaultValue = "all") String stateParam,
                                                    @RequestParam(name = "from", required = false)
                                                    Optional<Integer> from,
                                                    @RequestParam(name = "size", required = false)
-                                                   Optional<Integer> size) throws BadRequestException {
-        log.info("Get booking with state {}, userId={}, from={}, size={}", stateParam, userId, from, size);
+                                                   Optional<Integer> size,
+                                                   @RequestParam(name = "cursor", required = false)
+                                                   String cursor) throws BadRequestException {
+        log.info("Get booking with state {}, userId={}, from={}, size={}, cursor={}",
+                stateParam, userId, from, size, cursor);
         try {
             BookingRequestStatus state = BookingRequestStatus.getValue(stateParam);
-            return bookingClient.getBookings(userId, state, from, size, true);
+            return bookingClient.getBookings(userId, state, from, size, cursor, true);
         } catch (BadRequestException e) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Collections.singletonMap("error", e.getMessage()));
+            return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Collections.singletonMap("error", e.getMessage())));
         }
     }
 
     @PostMapping
-    public ResponseEntity<Object> add(@RequestHeader(OWNER_ID_HOLDER) long userId,
+    public Mono<ResponseEntity<Object>> add(@RequestHeader(OWNER_ID_HOLDER) long userId,
                                       @RequestBody @Valid BookItemRequestDto requestDto) {
         log.info("Creating booking {}, userId={}", requestDto, userId);
         return bookingClient.add(userId, requestDto);
     }
 
+    // Поля каждой записи проверяются здесь, как в add; занятость периода сервер проверяет и отвечает по каждой отдельно
+    @PostMapping("/batch")
+    public Mono<ResponseEntity<Object>> addBatch(@RequestHeader(OWNER_ID_HOLDER) long userId,
+                                                 @RequestBody List<@NotNull @Valid BookItemRequestDto> requestDtos) {
+        log.info("Creating {} bookings, userId={}", requestDtos.size(), userId);
+        try {
+            return bookingClient.addBatch(userId, requestDtos);
+        } catch (BadRequestException e) {
+            return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Collections.singletonMap("error", e.getMessage())));
+        }
+    }
+
     @GetMapping("/{bookingId}")
-    public ResponseEntity<Object> getFromBookerOrOwner(@RequestHeader(OWNER_ID_HOLDER) long userId,
-                                                       @PathVariable Long bookingId) {
+    public Mono<ResponseEntity<Object>> getFromBookerOrOwner(@RequestHeader(OWNER_ID_HOLDER) long userId,
+                                                       @PathVariable Long bookingId,
+                                                       @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                                       String ifNoneMatch) {
         log.info("Get booking {}, userId={}", bookingId, userId);
-        return bookingClient.getFromBookerOrOwner(userId, bookingId);
+        return bookingClient.getFromBookerOrOwner(userId, bookingId, ifNoneMatch);
     }
 
     @PatchMapping(path = "/{bookingId}")
-    public ResponseEntity<Object> setState(@RequestHeader(OWNER_ID_HOLDER) long userId,
+    public Mono<ResponseEntity<Object>> setState(@RequestHeader(OWNER_ID_HOLDER) long userId,
                                            @PathVariable long bookingId,
                                            @RequestParam(value = "approved") String approved) {
         log.info("Got booking approve update request userId = {}, bookingId = {}, approved = {}",
                 userId, bookingId, approved);
         return bookingClient.setState(userId, bookingId, approved);
     }
+
+    // Нарушения в записях пакета (@Validated на классе) - 400 в той же форме, что и остальные ошибки контроллера
+    @ExceptionHandler(ConstraintViolationException.class)
+    public ResponseEntity<Object> constraintViolation(ConstraintViolationException e) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Collections.singletonMap("error", e.getMessage()));
+    }
 }
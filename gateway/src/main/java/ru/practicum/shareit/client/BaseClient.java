@@ -1,113 +1,306 @@
 package ru.practicum.shareit.client;
 
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.Tracer;
+import org.springframework.cloud.sleuth.propagation.Propagator;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.http.*;
 import org.springframework.lang.Nullable;
 import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class BaseClient {
+    // заголовки одного соединения, их выставляет сам Tomcat
+    private static final Set<String> HOP_BY_HOP_HEADERS = Set.of(
+            HttpHeaders.CONNECTION, HttpHeaders.TRANSFER_ENCODING, HttpHeaders.CONTENT_LENGTH, "Keep-Alive");
+
     protected final RestTemplate rest;
+    @Nullable
+    private final WebClient web;
+
+    // true - тело ответа сервера отдается клиенту байтами как есть, без разбора в Object и обратной сериализации
+    @Value("${shareit-server.client.passthrough:true}")
+    private boolean passthrough;
+
+    // null при spring.sleuth.enabled=false - запросы уходят без заголовков трассировки
+    @Nullable
+    private final Tracer tracer;
+    @Nullable
+    private final Propagator propagator;
+    // null при shareit-server.cache.enabled=false - getCached всегда идет на сервер
+    @Nullable
+    private final ReadCache readCache;
 
     public BaseClient(RestTemplate rest) {
+        this(rest, null, (Tracer) null, (Propagator) null, (ReadCache) null);
+    }
+
+    // web != null - неблокирующий режим: поток Tomcat не ждет ответа сервера, тело передается без разбора и без сборки в памяти
+    public BaseClient(RestTemplate rest, @Nullable WebClient web,
+                      ObjectProvider<Tracer> tracer, ObjectProvider<Propagator> propagator,
+                      ObjectProvider<ReadCache> readCache) {
+        this(rest, web, tracer.getIfAvailable(), propagator.getIfAvailable(), readCache.getIfAvailable());
+    }
+
+    private BaseClient(RestTemplate rest, @Nullable WebClient web,
+                       @Nullable Tracer tracer, @Nullable Propagator propagator, @Nullable ReadCache readCache) {
         this.rest = rest;
+        this.web = web;
+        this.tracer = tracer;
+        this.propagator = propagator;
+        this.readCache = readCache;
     }
 
-    protected ResponseEntity<Object> get(String path) {
+    protected Mono<ResponseEntity<Object>> get(String path) {
         return get(path, null, null);
     }
 
-    protected ResponseEntity<Object> get(String path, long userId) {
+    protected Mono<ResponseEntity<Object>> get(String path, long userId) {
         return get(path, userId, null);
     }
 
-    protected ResponseEntity<Object> get(String path, Long userId, @Nullable Map<String, Object> parameters) {
-        return makeAndSendRequest(HttpMethod.GET, path, userId, parameters, null);
+    protected Mono<ResponseEntity<Object>> get(String path, Long userId, @Nullable Map<String, Object> parameters) {
+        return makeAndSendRequest(HttpMethod.GET, path, userId, parameters, null, null);
+    }
+
+    // Условный GET: при совпадении ETag сервер отвечает 304 без тела, ответ передается клиенту как есть
+    protected Mono<ResponseEntity<Object>> getIfNoneMatch(String path, long userId, @Nullable String ifNoneMatch) {
+        return makeAndSendRequest(HttpMethod.GET, path, userId, null, null, ifNoneMatch);
+    }
+
+    // GET через кэш шлюза: ключ - полный URI и пользователь, tags - по каким событиям сервера запись сбрасывается.
+    // Ответ из кэша с тем же ETag, что прислал клиент, превращается в 304
+    protected Mono<ResponseEntity<Object>> getCached(String path, Long userId, @Nullable Map<String, Object> parameters,
+                                                     @Nullable String ifNoneMatch, String... tags) {
+        if (readCache == null) {
+            return makeAndSendRequest(HttpMethod.GET, path, userId, parameters, null, ifNoneMatch);
+        }
+        String key = userId + " " + rest.getUriTemplateHandler().expand(path, parameters != null ? parameters : Map.of());
+        ResponseEntity<Object> cached = readCache.get(key);
+        if (cached != null) {
+            return Mono.just(notModifiedOr(cached, ifNoneMatch));
+        }
+        long generation = readCache.generation();
+        List<String> entryTags = List.of(tags);
+        return makeAndSendRequest(HttpMethod.GET, path, userId, parameters, null, ifNoneMatch)
+                .flatMap(BaseClient::buffered)
+                .doOnNext(response -> readCache.put(key, response, generation, entryTags));
     }
 
-    protected <T> ResponseEntity<Object> post(String path, T body) {
+    protected <T> Mono<ResponseEntity<Object>> post(String path, T body) {
         return post(path, null, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, long userId, T body) {
+    protected <T> Mono<ResponseEntity<Object>> post(String path, long userId, T body) {
         return post(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
-        return makeAndSendRequest(HttpMethod.POST, path, userId, parameters, body);
+    protected <T> Mono<ResponseEntity<Object>> post(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
+        return makeAndSendRequest(HttpMethod.POST, path, userId, parameters, body, null);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, long userId, T body) {
+    protected <T> Mono<ResponseEntity<Object>> put(String path, long userId, T body) {
         return put(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, long userId, @Nullable Map<String, Object> parameters, T body) {
-        return makeAndSendRequest(HttpMethod.PUT, path, userId, parameters, body);
+    protected <T> Mono<ResponseEntity<Object>> put(String path, long userId, @Nullable Map<String, Object> parameters, T body) {
+        return makeAndSendRequest(HttpMethod.PUT, path, userId, parameters, body, null);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, T body) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, T body) {
         return patch(path, null, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, long userId) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, long userId) {
         return patch(path, userId, null, null);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, long userId, T body) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, long userId, T body) {
         return patch(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
-        return makeAndSendRequest(HttpMethod.PATCH, path, userId, parameters, body);
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
+        return makeAndSendRequest(HttpMethod.PATCH, path, userId, parameters, body, null);
     }
 
-    protected ResponseEntity<Object> delete(String path) {
+    protected Mono<ResponseEntity<Object>> delete(String path) {
         return delete(path, null, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, long userId) {
+    protected Mono<ResponseEntity<Object>> delete(String path, long userId) {
         return delete(path, userId, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, Long userId, @Nullable Map<String, Object> parameters) {
-        return makeAndSendRequest(HttpMethod.DELETE, path, userId, parameters, null);
+    protected Mono<ResponseEntity<Object>> delete(String path, Long userId, @Nullable Map<String, Object> parameters) {
+        return makeAndSendRequest(HttpMethod.DELETE, path, userId, parameters, null, null);
+    }
+
+    private <T> Mono<ResponseEntity<Object>> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body, @Nullable String ifNoneMatch) {
+        Span span = startClientSpan(method, path);
+        HttpHeaders headers = defaultHeaders(userId, span, ifNoneMatch);
+        if (web != null) {
+            return exchangeReactive(web, span, method, path, headers, parameters, body);
+        }
+        if (span == null) {
+            return Mono.just(exchangeBlocking(null, method, path, headers, parameters, body));
+        }
+        try (Tracer.SpanInScope ignored = tracer.withSpan(span)) {
+            return Mono.just(exchangeBlocking(span, method, path, headers, parameters, body));
+        } catch (RuntimeException e) {
+            span.error(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    private <T> Mono<ResponseEntity<Object>> exchangeReactive(WebClient web, @Nullable Span span, HttpMethod method, String path, HttpHeaders headers, @Nullable Map<String, Object> parameters, @Nullable T body) {
+        WebClient.RequestBodySpec request = web.method(method)
+                .uri(path, parameters != null ? parameters : Map.of())
+                .headers(requestHeaders -> requestHeaders.addAll(headers));
+        WebClient.RequestHeadersSpec<?> spec = body != null ? request.bodyValue(body) : request;
+        // Ошибки сервера не превращаются в исключения WebClient - статус и тело уходят клиенту, как в блокирующем режиме
+        Mono<ResponseEntity<Object>> response = spec.retrieve()
+                .onStatus(status -> true, serverResponse -> Mono.empty())
+                .toEntityFlux(DataBuffer.class)
+                .flatMap(BaseClient::streamedOrBuffered);
+        if (span == null) {
+            return response;
+        }
+        return response
+                .doOnNext(entity -> tagStatus(span, entity))
+                .doOnError(span::error)
+                .doFinally(signal -> span.end());
     }
 
-    private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
-        HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(userId));
+    private <T> ResponseEntity<Object> exchangeBlocking(@Nullable Span span, HttpMethod method, String path, HttpHeaders headers, @Nullable Map<String, Object> parameters, @Nullable T body) {
+        HttpEntity<T> requestEntity = new HttpEntity<>(body, headers);
 
-        ResponseEntity<Object> shareitServerResponse;
+        Class<?> responseType = passthrough ? byte[].class : Object.class;
+        ResponseEntity<?> shareitServerResponse;
         try {
             if (parameters != null) {
-                shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class, parameters);
+                shareitServerResponse = rest.exchange(path, method, requestEntity, responseType, parameters);
             } else {
-                shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class);
+                shareitServerResponse = rest.exchange(path, method, requestEntity, responseType);
             }
         } catch (HttpStatusCodeException e) {
-            return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsByteArray());
+            ResponseEntity<Object> error = ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsByteArray());
+            tagStatus(span, error);
+            return error;
         }
-        return prepareGatewayResponse(shareitServerResponse);
+        ResponseEntity<Object> response = prepareGatewayResponse(shareitServerResponse);
+        tagStatus(span, response);
+        return response;
     }
 
-    private HttpHeaders defaultHeaders(Long userId) {
+    private HttpHeaders defaultHeaders(Long userId, @Nullable Span span, @Nullable String ifNoneMatch) {
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
         headers.setAccept(List.of(MediaType.APPLICATION_JSON));
         if (userId != null) {
             headers.set("X-Sharer-User-Id", String.valueOf(userId));
         }
+        if (ifNoneMatch != null) {
+            headers.set(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        // B3-заголовки клиентского спана: сервер продолжает эту трассу, а не начинает новую
+        if (span != null && propagator != null) {
+            propagator.inject(span.context(), headers, HttpHeaders::set);
+        }
         return headers;
     }
 
-    private static ResponseEntity<Object> prepareGatewayResponse(ResponseEntity<Object> response) {
-        if (response.getStatusCode().is2xxSuccessful()) {
-            return response;
+    // Дочерний спан текущего запроса шлюза: время от отправки запроса серверу до получения ответа
+    @Nullable
+    private Span startClientSpan(HttpMethod method, String path) {
+        if (tracer == null) {
+            return null;
+        }
+        return tracer.spanBuilder()
+                .kind(Span.Kind.CLIENT)
+                .name(method.name())
+                .remoteServiceName("shareit-server")
+                .tag("http.method", method.name())
+                .tag("http.path", path)
+                .start();
+    }
+
+    private static void tagStatus(@Nullable Span span, ResponseEntity<?> response) {
+        if (span != null) {
+            span.tag("http.status_code", String.valueOf(response.getStatusCodeValue()));
         }
+    }
+
+    private static ResponseEntity<Object> notModifiedOr(ResponseEntity<Object> cached, @Nullable String ifNoneMatch) {
+        String eTag = cached.getHeaders().getETag();
+        if (ifNoneMatch == null || eTag == null) {
+            return cached;
+        }
+        HttpHeaders request = new HttpHeaders();
+        request.set(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        String opaqueETag = opaqueTag(eTag);
+        if (request.getIfNoneMatch().stream().anyMatch(tag -> tag.equals("*") || opaqueTag(tag).equals(opaqueETag))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        return cached;
+    }
 
+    // If-None-Match сравнивает теги слабо: W/"x" и "x" - одна версия
+    private static String opaqueTag(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+    // Успешный ответ с телом передается клиенту по мере получения (DataBufferFluxHttpMessageConverter).
+    // Ошибки и ответы без Content-Type собираются в byte[] и отдаются в той же форме, что и в блокирующем режиме
+    private static Mono<ResponseEntity<Object>> streamedOrBuffered(ResponseEntity<Flux<DataBuffer>> response) {
+        if (response.getStatusCode().is2xxSuccessful() && response.getHeaders().getContentType() != null) {
+            return Mono.just(prepareGatewayResponse(response));
+        }
+        return buffered(response).map(BaseClient::prepareGatewayResponse);
+    }
+
+    // Поток тела читается один раз: в кэш и повторные ответы из него попадают байты
+    @SuppressWarnings("unchecked")
+    private static Mono<ResponseEntity<Object>> buffered(ResponseEntity<?> response) {
+        if (!(response.getBody() instanceof Publisher)) {
+            return Mono.just((ResponseEntity<Object>) response);
+        }
+        return DataBufferUtils.join((Publisher<DataBuffer>) response.getBody())
+                .map(buffer -> {
+                    byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    DataBufferUtils.release(buffer);
+                    return new ResponseEntity<Object>(bytes, response.getHeaders(), response.getStatusCode());
+                })
+                .defaultIfEmpty(new ResponseEntity<>(response.getHeaders(), response.getStatusCode()));
+    }
+
+    // Заголовки соединения сервера не копируются: с Transfer-Encoding: chunked от сервера
+    // и телом, которое Tomcat пишет заново, клиент получал испорченный ответ
+    private static ResponseEntity<Object> prepareGatewayResponse(ResponseEntity<?> response) {
         ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(response.getStatusCode());
 
+        // 304 несет ETag, по которому клиент продолжает условные запросы
+        if (response.getStatusCode().is2xxSuccessful() || response.getStatusCode() == HttpStatus.NOT_MODIFIED) {
+            response.getHeaders().forEach((name, values) -> {
+                if (HOP_BY_HOP_HEADERS.stream().noneMatch(name::equalsIgnoreCase)) {
+                    responseBuilder.header(name, values.toArray(new String[0]));
+                }
+            });
+        }
+
         if (response.hasBody()) {
             return responseBuilder.body(response.getBody());
         }
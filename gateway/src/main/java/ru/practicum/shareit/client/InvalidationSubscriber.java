@@ -0,0 +1,95 @@
+package ru.practicum.shareit.client;
+
+import io.netty.channel.ChannelOption;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.lang.Nullable;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.netty.http.client.HttpClient;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+
+// Подписка на GET /invalidations сервера: события об изменениях сбрасывают записи ReadCache.
+// Свое соединение без таймаута ответа - поток бесконечный; обрыв замечается по отсутствию heartbeat.
+// При обрыве кэш выключается и очищается, переподключение - с нарастающей паузой
+@Slf4j
+public class InvalidationSubscriber {
+    private static final ParameterizedTypeReference<ServerSentEvent<String>> EVENT_TYPE =
+            new ParameterizedTypeReference<>() {
+            };
+
+    private final WebClient web;
+    private final ReadCache cache;
+    private final Duration silenceTimeout;
+    @Nullable
+    private Disposable subscription;
+
+    public InvalidationSubscriber(String serverUrl, ReadCache cache, Duration silenceTimeout, int connectTimeoutMs) {
+        HttpClient client = HttpClient.create()
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs);
+        this.web = WebClient.builder()
+                .baseUrl(serverUrl)
+                .clientConnector(new ReactorClientHttpConnector(client))
+                .build();
+        this.cache = cache;
+        this.silenceTimeout = silenceTimeout;
+    }
+
+    public void start() {
+        subscription = Flux.defer(this::events)
+                .timeout(silenceTimeout)
+                .concatWith(Flux.error(new IllegalStateException("сервер закрыл поток событий")))
+                .doOnNext(this::apply)
+                .doOnError(e -> {
+                    cache.disconnected();
+                    log.warn("Нет подписки на события изменений, кэш чтения выключен: {}", e.toString());
+                })
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                        .maxBackoff(Duration.ofSeconds(30))
+                        .transientErrors(true))
+                .subscribe();
+    }
+
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    private Flux<ServerSentEvent<String>> events() {
+        return web.get()
+                .uri("/invalidations")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .retrieve()
+                .bodyToFlux(EVENT_TYPE);
+    }
+
+    void apply(ServerSentEvent<String> event) {
+        String name = event.event() != null ? event.event() : "";
+        switch (name) {
+            case "CONNECTED":
+                cache.connected();
+                log.info("Подписка на события изменений установлена, кэш чтения включен");
+                break;
+            case "USER":
+                // удаление пользователя каскадом удаляет его вещи, бронирования и запросы
+                cache.invalidateAll();
+                break;
+            case "ITEM":
+                // вещь входит в списки вещей владельца, поиск и ответы на запросы
+                cache.invalidate(ReadCache.item(Long.parseLong(event.data())), ReadCache.ITEMS, ReadCache.REQUESTS);
+                break;
+            case "REQUEST":
+                cache.invalidate(ReadCache.REQUESTS);
+                break;
+            default:
+                // HEARTBEAT - только сбрасывает таймаут тишины
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package ru.practicum.shareit.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Кэш GET-ответов сервера в шлюзе. Записи сбрасываются по тегам из событий сервера (InvalidationSubscriber),
+// ttl - страховка для данных, которые меняются со временем без записи (прошлое и будущее бронирование вещи).
+// Пока подписка на события не установлена, кэш не читается и не пополняется: пропущенный сброс не отдаст старые данные
+public class ReadCache {
+    public static final String USERS = "users";
+    public static final String ITEMS = "items";
+    public static final String REQUESTS = "requests";
+
+    private final Cache<String, Entry> entries;
+    // растет при каждом сбросе: ответ на запрос, начатый до сброса, в кэш не попадает
+    private final AtomicLong generation = new AtomicLong();
+    private volatile boolean live;
+
+    public ReadCache(long maximumSize, Duration ttl) {
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    public static String item(long id) {
+        return "item:" + id;
+    }
+
+    public Cache<String, ?> entries() {
+        return entries;
+    }
+
+    long generation() {
+        return generation.get();
+    }
+
+    @Nullable
+    ResponseEntity<Object> get(String key) {
+        if (!live) {
+            return null;
+        }
+        Entry entry = entries.getIfPresent(key);
+        return entry != null ? entry.response : null;
+    }
+
+    synchronized void put(String key, ResponseEntity<Object> response, long generation, List<String> tags) {
+        if (live && generation == this.generation.get() && response.getStatusCode() == HttpStatus.OK) {
+            entries.put(key, new Entry(response, tags));
+        }
+    }
+
+    public synchronized void invalidate(String... tags) {
+        generation.incrementAndGet();
+        List<String> invalidated = List.of(tags);
+        entries.asMap().values().removeIf(entry -> entry.tags.stream().anyMatch(invalidated::contains));
+    }
+
+    public synchronized void invalidateAll() {
+        generation.incrementAndGet();
+        entries.invalidateAll();
+    }
+
+    // События, пришедшие до подключения, потеряны - кэш начинается заново
+    public synchronized void connected() {
+        invalidateAll();
+        live = true;
+    }
+
+    public synchronized void disconnected() {
+        live = false;
+        invalidateAll();
+    }
+
+    static final class Entry {
+        private final ResponseEntity<Object> response;
+        private final List<String> tags;
+
+        private Entry(ResponseEntity<Object> response, List<String> tags) {
+            this.response = response;
+            this.tags = tags;
+        }
+    }
+}
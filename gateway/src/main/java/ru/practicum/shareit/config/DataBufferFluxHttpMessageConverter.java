@@ -0,0 +1,46 @@
+package ru.practicum.shareit.config;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+
+// Тело ответа сервера из WebClient пишется в ответ Tomcat частями по мере получения, без сборки в byte[].
+// Поток Tomcat занят только на время передачи тела: к записи заголовки ответа сервера уже получены
+public class DataBufferFluxHttpMessageConverter extends AbstractHttpMessageConverter<Publisher<DataBuffer>> {
+    public DataBufferFluxHttpMessageConverter() {
+        super(MediaType.ALL);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return Publisher.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, @Nullable MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected Publisher<DataBuffer> readInternal(Class<? extends Publisher<DataBuffer>> clazz,
+                                                 HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Чтение тела запроса в Flux<DataBuffer> не поддерживается",
+                inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(Publisher<DataBuffer> body, HttpOutputMessage outputMessage) throws IOException {
+        DataBufferUtils.write(body, outputMessage.getBody())
+                .doOnNext(DataBufferUtils::release)
+                .then()
+                .block();
+    }
+}
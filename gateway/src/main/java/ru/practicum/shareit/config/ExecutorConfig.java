@@ -0,0 +1,38 @@
+package ru.practicum.shareit.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// shareit.executor.mode=virtual - запросы Tomcat (и вызовы внутри них) выполняются на виртуальных потоках.
+// Сборка остается на Java 11, поэтому фабрика ищется при запуске: режим работает только под Java 21+
+// (образы Docker - amazoncorretto:21). На более старой Java приложение не запускается, а не работает молча на пуле.
+// Копия ExecutorConfig сервера: общего модуля у шлюза и сервера нет, общие классы (GroupCreate, BadRequestException)
+// так же повторяются в каждом. Меняется - в обоих.
+@Slf4j
+@Configuration
+public class ExecutorConfig {
+    @Bean
+    @ConditionalOnProperty(name = "shareit.executor.mode", havingValue = "virtual")
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadsProtocolHandlerCustomizer() {
+        ExecutorService executor = virtualThreadExecutor();
+        return protocolHandler -> protocolHandler.setExecutor(executor);
+    }
+
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            log.info("Запросы обрабатываются на виртуальных потоках");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("shareit.executor.mode=virtual требует Java 21+, запущено на Java "
+                    + System.getProperty("java.version"), e);
+        }
+    }
+}
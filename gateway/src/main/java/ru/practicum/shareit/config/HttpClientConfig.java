@@ -0,0 +1,136 @@
+package ru.practicum.shareit.config;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.PoolingHttpClientConnectionManagerMetricsBinder;
+import io.netty.channel.ChannelOption;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+// Один пул соединений к серверу на все клиенты шлюза вместо отдельного пула по умолчанию в каждом.
+// shareit-server.client.mode=reactive - вместо RestTemplate запросы идут через WebClient на Netty со своим пулом.
+@Configuration
+public class HttpClientConfig {
+    @Value("${shareit-server.pool.max-total:200}")
+    private int maxTotal;
+
+    @Value("${shareit-server.pool.max-per-route:200}")
+    private int maxPerRoute;
+
+    @Value("${shareit-server.pool.idle-evict-ms:30000}")
+    private long idleEvictMs;
+
+    @Value("${shareit-server.pool.validate-after-inactivity-ms:2000}")
+    private int validateAfterInactivityMs;
+
+    @Value("${shareit-server.pool.keep-alive-ms:60000}")
+    private long keepAliveMs;
+
+    // 0 - без ограничения; иначе соединение закрывается через это время независимо от простоя
+    @Value("${shareit-server.pool.max-life-ms:0}")
+    private long maxLifeMs;
+
+    @Value("${shareit-server.pool.max-pending:10000}")
+    private int maxPending;
+
+    @Value("${shareit-server.timeout.connect-ms:2000}")
+    private int connectTimeoutMs;
+
+    @Value("${shareit-server.timeout.read-ms:10000}")
+    private int readTimeoutMs;
+
+    @Value("${shareit-server.timeout.pool-wait-ms:2000}")
+    private int poolWaitMs;
+
+    @Bean
+    public PoolingHttpClientConnectionManager shareitServerConnectionManager() {
+        PoolingHttpClientConnectionManager manager = new PoolingHttpClientConnectionManager();
+        manager.setMaxTotal(maxTotal);
+        manager.setDefaultMaxPerRoute(maxPerRoute);
+        manager.setValidateAfterInactivity(validateAfterInactivityMs);
+        return manager;
+    }
+
+    @Bean
+    public CloseableHttpClient shareitServerHttpClient(PoolingHttpClientConnectionManager manager) {
+        return HttpClients.custom()
+                .setConnectionManager(manager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout(connectTimeoutMs)
+                        .setSocketTimeout(readTimeoutMs)
+                        .setConnectionRequestTimeout(poolWaitMs)
+                        .build())
+                .setKeepAliveStrategy(keepAliveStrategy())
+                .evictExpiredConnections()
+                .evictIdleConnections(idleEvictMs, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    @Bean
+    public ClientHttpRequestFactory shareitServerRequestFactory(CloseableHttpClient httpClient) {
+        return new HttpComponentsClientHttpRequestFactory(httpClient);
+    }
+
+    // httpcomponents.httpclient.pool.* с тегом httpclient=shareit-server в /actuator/metrics
+    @Bean
+    public MeterBinder shareitServerPoolMetrics(PoolingHttpClientConnectionManager manager) {
+        return new PoolingHttpClientConnectionManagerMetricsBinder(manager, "shareit-server");
+    }
+
+    @Bean(destroyMethod = "dispose")
+    @ConditionalOnProperty(name = "shareit-server.client.mode", havingValue = "reactive")
+    public ConnectionProvider shareitServerConnectionProvider() {
+        ConnectionProvider.Builder builder = ConnectionProvider.builder("shareit-server")
+                .maxConnections(maxTotal)
+                .pendingAcquireMaxCount(maxPending)
+                .pendingAcquireTimeout(Duration.ofMillis(poolWaitMs))
+                .maxIdleTime(Duration.ofMillis(keepAliveMs))
+                .evictInBackground(Duration.ofMillis(idleEvictMs))
+                .metrics(true);
+        if (maxLifeMs > 0) {
+            builder.maxLifeTime(Duration.ofMillis(maxLifeMs));
+        }
+        return builder.build();
+    }
+
+    // Подхватывается автоконфигурацией HttpMessageConverters и ставится перед конвертерами по умолчанию
+    @Bean
+    @ConditionalOnProperty(name = "shareit-server.client.mode", havingValue = "reactive")
+    public DataBufferFluxHttpMessageConverter dataBufferFluxHttpMessageConverter() {
+        return new DataBufferFluxHttpMessageConverter();
+    }
+
+    // Подхватывается автоконфигурацией WebClient.Builder; метрики пула - reactor.netty.connection.provider.*
+    @Bean
+    @ConditionalOnProperty(name = "shareit-server.client.mode", havingValue = "reactive")
+    public ClientHttpConnector shareitServerConnector(ConnectionProvider provider) {
+        HttpClient client = HttpClient.create(provider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .responseTimeout(Duration.ofMillis(readTimeoutMs));
+        return new ReactorClientHttpConnector(client);
+    }
+
+    // Tomcat не присылает Keep-Alive: timeout, без ограничения соединение считалось бы вечным
+    private ConnectionKeepAliveStrategy keepAliveStrategy() {
+        return (response, context) -> {
+            long fromHeader = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return fromHeader > 0 ? Math.min(fromHeader, keepAliveMs) : keepAliveMs;
+        };
+    }
+}
@@ -0,0 +1,47 @@
+package ru.practicum.shareit.config;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.practicum.shareit.client.InvalidationSubscriber;
+import ru.practicum.shareit.client.ReadCache;
+
+import java.time.Duration;
+
+// shareit-server.cache.enabled=true - GET пользователей, вещей и запросов отдаются из кэша шлюза,
+// сервер сообщает об изменениях через GET /invalidations. Бронирования не кэшируются
+@Configuration
+@ConditionalOnProperty(name = "shareit-server.cache.enabled", havingValue = "true")
+public class ReadCacheConfig {
+    @Value("${shareit-server.cache.maximum-size:10000}")
+    private long maximumSize;
+
+    @Value("${shareit-server.cache.ttl-ms:60000}")
+    private long ttlMs;
+
+    @Value("${shareit-server.cache.silence-timeout-ms:45000}")
+    private long silenceTimeoutMs;
+
+    @Value("${shareit-server.timeout.connect-ms:2000}")
+    private int connectTimeoutMs;
+
+    @Bean
+    public ReadCache readCache() {
+        return new ReadCache(maximumSize, Duration.ofMillis(ttlMs));
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public InvalidationSubscriber invalidationSubscriber(@Value("${shareit-server.url}") String serverUrl,
+                                                         ReadCache readCache) {
+        return new InvalidationSubscriber(serverUrl, readCache, Duration.ofMillis(silenceTimeoutMs), connectTimeoutMs);
+    }
+
+    // cache.gets (result=hit|miss), cache.evictions, cache.size с тегом cache=shareit-read-cache
+    @Bean
+    public MeterBinder readCacheMetrics(ReadCache readCache) {
+        return registry -> CaffeineCacheMetrics.monitor(registry, readCache.entries(), "shareit-read-cache");
+    }
+}
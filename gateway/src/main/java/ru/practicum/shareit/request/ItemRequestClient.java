@@ -1,13 +1,19 @@
 package ru.practicum.shareit.request;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.cloud.sleuth.Tracer;
+import org.springframework.cloud.sleuth.propagation.Propagator;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.ReadCache;
 import ru.practicum.shareit.request.dto.RequestItemRequestDto;
 
 import java.util.Map;
@@ -17,32 +23,41 @@ public class ItemRequestClient extends BaseClient {
     private static final String API_PREFIX = "/requests";
 
     @Autowired
-    public ItemRequestClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public ItemRequestClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                             ClientHttpRequestFactory requestFactory,
+                             WebClient.Builder webClientBuilder,
+                             @Value("${shareit-server.client.mode:blocking}") String mode,
+                             ObjectProvider<Tracer> tracer, ObjectProvider<Propagator> propagator,
+                             ObjectProvider<ReadCache> readCache) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> requestFactory)
+                        .build(),
+                "reactive".equalsIgnoreCase(mode) ? webClientBuilder.baseUrl(serverUrl + API_PREFIX).build() : null,
+                tracer,
+                propagator,
+                readCache
         );
     }
 
-    public ResponseEntity<Object> getAllUserItemRequests(long userId) {
-        return get("", userId);
+    public Mono<ResponseEntity<Object>> getAllUserItemRequests(long userId) {
+        return getCached("", userId, null, null, ReadCache.REQUESTS);
     }
 
-    public ResponseEntity<Object> getAllRequests(long userId, Integer from, Integer size) {
+    public Mono<ResponseEntity<Object>> getAllRequests(long userId, Integer from, Integer size) {
         Map<String, Object> parameters = Map.of(
                 "from", from,
                 "size", size
         );
-        return get("/all?from={from}&size={size}", userId, parameters);
+        return getCached("/all?from={from}&size={size}", userId, parameters, null, ReadCache.REQUESTS);
     }
 
-    public ResponseEntity<Object> getById(Long id, Long userId) {
-        return get("/" + id, userId);
+    public Mono<ResponseEntity<Object>> getById(Long id, Long userId) {
+        return getCached("/" + id, userId, null, null, ReadCache.REQUESTS);
     }
 
-    public ResponseEntity<Object> create(Long userId, RequestItemRequestDto requestDto) {
+    public Mono<ResponseEntity<Object>> create(Long userId, RequestItemRequestDto requestDto) {
         return post("", userId, requestDto);
     }
 }
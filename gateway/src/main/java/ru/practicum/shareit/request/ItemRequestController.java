@@ -5,6 +5,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.request.dto.RequestItemRequestDto;
 
 import javax.validation.constraints.Positive;
@@ -20,13 +21,13 @@ public class ItemRequestController {
     private static final String OWNER_ID_HOLDER = "X-Sharer-User-Id";
 
     @GetMapping()
-    public ResponseEntity<Object> getAllUserRequests(@RequestHeader(OWNER_ID_HOLDER) long userId) {
+    public Mono<ResponseEntity<Object>> getAllUserRequests(@RequestHeader(OWNER_ID_HOLDER) long userId) {
         log.info("Got all user itemRequests request");
         return itemRequestClient.getAllUserItemRequests(userId);
     }
 
     @GetMapping("/all")
-    public ResponseEntity<Object> getAllRequests(
+    public Mono<ResponseEntity<Object>> getAllRequests(
             @RequestHeader(OWNER_ID_HOLDER) long userId,
             @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
             @Positive @RequestParam(name = "size", defaultValue = "10") Integer size
@@ -36,7 +37,7 @@ public class ItemRequestController {
     }
 
     @GetMapping(value = "/{id}")
-    public ResponseEntity<Object> getById(
+    public Mono<ResponseEntity<Object>> getById(
             @RequestHeader(OWNER_ID_HOLDER) long userId,
             @PathVariable long id) {
         log.info("Got itemRequest request by id");
@@ -44,7 +45,7 @@ public class ItemRequestController {
     }
 
     @PostMapping(consumes = "application/json;charset=UTF-8", produces = "application/json;")
-    public ResponseEntity<Object> create(
+    public Mono<ResponseEntity<Object>> create(
             @RequestHeader(OWNER_ID_HOLDER) long userId,
             @Validated() @RequestBody RequestItemRequestDto requestDto
     ) {
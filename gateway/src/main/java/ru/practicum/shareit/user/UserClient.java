@@ -1,13 +1,19 @@
 package ru.practicum.shareit.user;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.cloud.sleuth.Tracer;
+import org.springframework.cloud.sleuth.propagation.Propagator;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.ReadCache;
 import ru.practicum.shareit.user.dto.UserRequestDto;
 
 @Service
@@ -15,32 +21,41 @@ public class UserClient extends BaseClient {
     private static final String API_PREFIX = "/users";
 
     @Autowired
-    public UserClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public UserClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                      ClientHttpRequestFactory requestFactory,
+                      WebClient.Builder webClientBuilder,
+                      @Value("${shareit-server.client.mode:blocking}") String mode,
+                      ObjectProvider<Tracer> tracer, ObjectProvider<Propagator> propagator,
+                      ObjectProvider<ReadCache> readCache) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> requestFactory)
+                        .build(),
+                "reactive".equalsIgnoreCase(mode) ? webClientBuilder.baseUrl(serverUrl + API_PREFIX).build() : null,
+                tracer,
+                propagator,
+                readCache
         );
     }
 
-    public ResponseEntity<Object> getAll() {
-        return get("");
+    public Mono<ResponseEntity<Object>> getAll() {
+        return getCached("", null, null, null, ReadCache.USERS);
     }
 
-    public ResponseEntity<Object> getUser(Long id) {
-        return get("/" + id);
+    public Mono<ResponseEntity<Object>> getUser(Long id) {
+        return getCached("/" + id, null, null, null, ReadCache.USERS);
     }
 
-    public ResponseEntity<Object> create(UserRequestDto user) {
+    public Mono<ResponseEntity<Object>> create(UserRequestDto user) {
         return post("/", user);
     }
 
-    public ResponseEntity<Object> updateUser(Long id, UserRequestDto user) {
+    public Mono<ResponseEntity<Object>> updateUser(Long id, UserRequestDto user) {
         return patch("/" + id, user);
     }
 
-    public ResponseEntity<Object> delete(Long id) {
+    public Mono<ResponseEntity<Object>> delete(Long id) {
         return delete("/" + id);
     }
 
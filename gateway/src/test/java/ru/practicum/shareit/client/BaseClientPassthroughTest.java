@@ -0,0 +1,150 @@
+package ru.practicum.shareit.client;
+
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.sleuth.Tracer;
+import org.springframework.cloud.sleuth.propagation.Propagator;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+
+// Тело ответа сервера уходит клиенту байтами как есть: в блокирующем режиме - byte[],
+// в reactive - Flux<DataBuffer> для успешного ответа и byte[] для ошибки
+class BaseClientPassthroughTest {
+    private static final String BODY = "{\"id\":1,\"name\":\"Дрель\"}";
+    private static final String ERROR = "{\"noContentException\":\"Нет вещи с 'id' 9.\"}";
+
+    @Test
+    void blocking_ok_bytes_and_end_to_end_headers() {
+        RestTemplate rest = rest();
+        MockRestServiceServer server = MockRestServiceServer.bindTo(rest).build();
+        server.expect(requestTo("http://server/items/1"))
+                .andRespond(withStatus(HttpStatus.OK).body(BODY.getBytes(StandardCharsets.UTF_8))
+                        .headers(serverHeaders()));
+
+        ResponseEntity<Object> response = new TestClient(rest, null).get("/1", 7L).block();
+
+        server.verify();
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertArrayEquals(BODY.getBytes(StandardCharsets.UTF_8), (byte[]) response.getBody());
+        assertEndToEndHeadersOnly(response.getHeaders());
+    }
+
+    @Test
+    void blocking_error_status_and_body_only() {
+        RestTemplate rest = rest();
+        MockRestServiceServer server = MockRestServiceServer.bindTo(rest).build();
+        server.expect(requestTo("http://server/items/9"))
+                .andRespond(withStatus(HttpStatus.NOT_FOUND).body(ERROR.getBytes(StandardCharsets.UTF_8))
+                        .headers(serverHeaders()));
+
+        ResponseEntity<Object> response = new TestClient(rest, null).get("/9", 7L).block();
+
+        server.verify();
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertArrayEquals(ERROR.getBytes(StandardCharsets.UTF_8), (byte[]) response.getBody());
+        assertTrue(response.getHeaders().isEmpty());
+    }
+
+    @Test
+    void reactive_ok_streamed_bytes_and_end_to_end_headers() {
+        WebClient web = web(HttpStatus.OK, BODY);
+
+        ResponseEntity<Object> response = new TestClient(rest(), web).get("/1", 7L).block();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(response.getBody() instanceof Publisher);
+        assertArrayEquals(BODY.getBytes(StandardCharsets.UTF_8), join(response.getBody()));
+        assertEndToEndHeadersOnly(response.getHeaders());
+    }
+
+    @Test
+    void reactive_error_status_and_body_only() {
+        WebClient web = web(HttpStatus.NOT_FOUND, ERROR);
+
+        ResponseEntity<Object> response = new TestClient(rest(), web).get("/9", 7L).block();
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertArrayEquals(ERROR.getBytes(StandardCharsets.UTF_8), (byte[]) response.getBody());
+        assertTrue(response.getHeaders().isEmpty());
+    }
+
+    private static RestTemplate rest() {
+        RestTemplate rest = new RestTemplate();
+        rest.setUriTemplateHandler(new DefaultUriBuilderFactory("http://server/items"));
+        return rest;
+    }
+
+    private static WebClient web(HttpStatus status, String body) {
+        return WebClient.builder()
+                .baseUrl("http://server/items")
+                .exchangeFunction(request -> Mono.just(ClientResponse.create(status)
+                        .headers(headers -> headers.addAll(serverHeaders()))
+                        .body(body)
+                        .build()))
+                .build();
+    }
+
+    private static HttpHeaders serverHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setETag("\"v1\"");
+        headers.set("X-Total-Count", "1");
+        headers.set(HttpHeaders.CONNECTION, "keep-alive");
+        headers.set("Keep-Alive", "timeout=60");
+        headers.set(HttpHeaders.TRANSFER_ENCODING, "chunked");
+        return headers;
+    }
+
+    private static void assertEndToEndHeadersOnly(HttpHeaders headers) {
+        assertEquals(MediaType.APPLICATION_JSON, headers.getContentType());
+        assertEquals("\"v1\"", headers.getETag());
+        assertEquals(List.of("1"), headers.get("X-Total-Count"));
+        assertFalse(headers.containsKey(HttpHeaders.CONNECTION));
+        assertFalse(headers.containsKey("Keep-Alive"));
+        assertFalse(headers.containsKey(HttpHeaders.TRANSFER_ENCODING));
+        assertFalse(headers.containsKey(HttpHeaders.CONTENT_LENGTH));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static byte[] join(Object body) {
+        DataBuffer buffer = DataBufferUtils.join((Publisher<DataBuffer>) body).block();
+        byte[] bytes = new byte[buffer.readableByteCount()];
+        buffer.read(bytes);
+        DataBufferUtils.release(buffer);
+        return bytes;
+    }
+
+    // Без трассировки и кэша, passthrough включен, как по умолчанию в application.properties
+    private static class TestClient extends BaseClient {
+        TestClient(RestTemplate rest, @Nullable WebClient web) {
+            super(rest, web,
+                    new StaticListableBeanFactory().getBeanProvider(Tracer.class),
+                    new StaticListableBeanFactory().getBeanProvider(Propagator.class),
+                    new StaticListableBeanFactory().getBeanProvider(ReadCache.class));
+            ReflectionTestUtils.setField(this, "passthrough", true);
+        }
+    }
+}
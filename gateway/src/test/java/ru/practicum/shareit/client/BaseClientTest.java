@@ -0,0 +1,165 @@
+package ru.practicum.shareit.client;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.sleuth.Tracer;
+import org.springframework.cloud.sleuth.propagation.Propagator;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.client.ExpectedCount.once;
+import static org.springframework.test.web.client.ExpectedCount.twice;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class BaseClientTest {
+    private static final String ITEM = "{\"id\":1,\"name\":\"drill\"}";
+    private static final String ETAG = "\"v1\"";
+
+    private final ReadCache readCache = new ReadCache(100, Duration.ofMinutes(1));
+    private MockRestServiceServer server;
+    private TestClient client;
+
+    @BeforeEach
+    void setUp() {
+        RestTemplate rest = new RestTemplate();
+        rest.setUriTemplateHandler(new DefaultUriBuilderFactory("http://server/items"));
+        server = MockRestServiceServer.bindTo(rest).build();
+        client = new TestClient(rest, readCache);
+        readCache.connected();
+    }
+
+    @Test
+    void getCached_second_call_from_cache() {
+        server.expect(once(), requestTo("http://server/items/1"))
+                .andExpect(method(HttpMethod.GET))
+                .andExpect(header("X-Sharer-User-Id", "7"))
+                .andRespond(withSuccess(ITEM, MediaType.APPLICATION_JSON).headers(eTagHeaders()));
+
+        ResponseEntity<Object> first = client.cached("/1", 7L, null, "item:1").block();
+        ResponseEntity<Object> second = client.cached("/1", 7L, null, "item:1").block();
+
+        server.verify();
+        assertEquals(HttpStatus.OK, second.getStatusCode());
+        assertEquals(ETAG, second.getHeaders().getETag());
+        assertArrayEquals(ITEM.getBytes(StandardCharsets.UTF_8), (byte[]) first.getBody());
+        assertArrayEquals(ITEM.getBytes(StandardCharsets.UTF_8), (byte[]) second.getBody());
+    }
+
+    @Test
+    void getCached_key_has_user() {
+        server.expect(twice(), requestTo("http://server/items/1"))
+                .andRespond(withSuccess(ITEM, MediaType.APPLICATION_JSON));
+
+        client.cached("/1", 7L, null, "item:1").block();
+        client.cached("/1", 8L, null, "item:1").block();
+
+        server.verify();
+    }
+
+    @Test
+    void getCached_after_invalidate_goes_to_server() {
+        server.expect(twice(), requestTo("http://server/items/1"))
+                .andRespond(withSuccess(ITEM, MediaType.APPLICATION_JSON));
+
+        client.cached("/1", 7L, null, "item:1").block();
+        readCache.invalidate(ReadCache.item(1));
+        client.cached("/1", 7L, null, "item:1").block();
+
+        server.verify();
+    }
+
+    @Test
+    void getCached_not_live_goes_to_server() {
+        readCache.disconnected();
+        server.expect(twice(), requestTo("http://server/items/1"))
+                .andRespond(withSuccess(ITEM, MediaType.APPLICATION_JSON));
+
+        client.cached("/1", 7L, null, "item:1").block();
+        client.cached("/1", 7L, null, "item:1").block();
+
+        server.verify();
+    }
+
+    @Test
+    void getCached_if_none_match_not_modified() {
+        primeCache();
+
+        for (String ifNoneMatch : new String[]{ETAG, "*", "W/" + ETAG, "\"v0\", " + ETAG}) {
+            ResponseEntity<Object> response = client.cached("/1", 7L, ifNoneMatch, "item:1").block();
+            assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode(), ifNoneMatch);
+            assertEquals(ETAG, response.getHeaders().getETag());
+            assertNull(response.getBody());
+        }
+    }
+
+    @Test
+    void getCached_if_none_match_other_tag_full_body() {
+        primeCache();
+
+        ResponseEntity<Object> response = client.cached("/1", 7L, "\"v2\"", "item:1").block();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertArrayEquals(ITEM.getBytes(StandardCharsets.UTF_8), (byte[]) response.getBody());
+    }
+
+    @Test
+    void getCached_miss_forwards_if_none_match() {
+        server.expect(once(), requestTo("http://server/items/1"))
+                .andExpect(header(HttpHeaders.IF_NONE_MATCH, ETAG))
+                .andRespond(withStatus(HttpStatus.NOT_MODIFIED).headers(eTagHeaders()));
+
+        ResponseEntity<Object> response = client.cached("/1", 7L, ETAG, "item:1").block();
+
+        server.verify();
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals(ETAG, response.getHeaders().getETag());
+    }
+
+    private void primeCache() {
+        server.expect(once(), requestTo("http://server/items/1"))
+                .andRespond(withSuccess(ITEM, MediaType.APPLICATION_JSON).headers(eTagHeaders()));
+        client.cached("/1", 7L, null, "item:1").block();
+        server.verify();
+    }
+
+    private static HttpHeaders eTagHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(ETAG);
+        return headers;
+    }
+
+    // Открывает getCached; трассировки нет, кэш - общий для теста
+    private static class TestClient extends BaseClient {
+        TestClient(RestTemplate rest, ReadCache readCache) {
+            super(rest, null,
+                    new StaticListableBeanFactory().getBeanProvider(Tracer.class),
+                    new StaticListableBeanFactory().getBeanProvider(Propagator.class),
+                    new StaticListableBeanFactory(Map.of("readCache", readCache)).getBeanProvider(ReadCache.class));
+            ReflectionTestUtils.setField(this, "passthrough", true);
+        }
+
+        Mono<ResponseEntity<Object>> cached(String path, long userId, String ifNoneMatch, String... tags) {
+            return getCached(path, userId, null, ifNoneMatch, tags);
+        }
+    }
+}
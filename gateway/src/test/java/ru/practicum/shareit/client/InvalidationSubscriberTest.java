@@ -0,0 +1,57 @@
+package ru.practicum.shareit.client;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.codec.ServerSentEvent;
+
+import java.time.Duration;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class InvalidationSubscriberTest {
+    @Mock
+    private ReadCache readCache;
+
+    @Test
+    void apply_connected() {
+        subscriber().apply(event("CONNECTED", ""));
+        verify(readCache).connected();
+    }
+
+    @Test
+    void apply_user_invalidates_all() {
+        subscriber().apply(event("USER", "1"));
+        verify(readCache).invalidateAll();
+    }
+
+    @Test
+    void apply_item_invalidates_item_lists_and_requests() {
+        subscriber().apply(event("ITEM", "5"));
+        verify(readCache).invalidate("item:5", ReadCache.ITEMS, ReadCache.REQUESTS);
+    }
+
+    @Test
+    void apply_request_invalidates_requests() {
+        subscriber().apply(event("REQUEST", "3"));
+        verify(readCache).invalidate(ReadCache.REQUESTS);
+    }
+
+    @Test
+    void apply_heartbeat_ignored() {
+        subscriber().apply(event("HEARTBEAT", ""));
+        subscriber().apply(ServerSentEvent.<String>builder().data("").build());
+        verifyNoInteractions(readCache);
+    }
+
+    private InvalidationSubscriber subscriber() {
+        return new InvalidationSubscriber("http://localhost:9090", readCache, Duration.ofSeconds(45), 2000);
+    }
+
+    private static ServerSentEvent<String> event(String name, String data) {
+        return ServerSentEvent.<String>builder().event(name).data(data).build();
+    }
+}
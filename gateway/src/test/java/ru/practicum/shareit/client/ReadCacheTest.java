@@ -0,0 +1,76 @@
+package ru.practicum.shareit.client;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ReadCacheTest {
+    private final ResponseEntity<Object> ok = ResponseEntity.ok("body");
+    private ReadCache readCache;
+
+    @BeforeEach
+    void setUp() {
+        readCache = new ReadCache(100, Duration.ofMinutes(1));
+        readCache.connected();
+    }
+
+    @Test
+    void put_get_ok() {
+        readCache.put("1 /items/1", ok, readCache.generation(), List.of(ReadCache.item(1)));
+        assertSame(ok, readCache.get("1 /items/1"));
+    }
+
+    @Test
+    void put_not_ok_status_skipped() {
+        ResponseEntity<Object> notFound = ResponseEntity.status(HttpStatus.NOT_FOUND).body("нет");
+        readCache.put("1 /items/1", notFound, readCache.generation(), List.of(ReadCache.item(1)));
+        assertNull(readCache.get("1 /items/1"));
+    }
+
+    @Test
+    void put_after_invalidate_skipped() {
+        long generation = readCache.generation();
+        readCache.invalidate(ReadCache.USERS);
+        readCache.put("1 /items/1", ok, generation, List.of(ReadCache.item(1)));
+        assertNull(readCache.get("1 /items/1"));
+    }
+
+    @Test
+    void invalidate_by_tag() {
+        readCache.put("1 /items/1", ok, readCache.generation(), List.of(ReadCache.item(1)));
+        readCache.put("1 /items/2", ok, readCache.generation(), List.of(ReadCache.item(2)));
+        readCache.put("1 /items?from=&size=", ok, readCache.generation(), List.of(ReadCache.ITEMS));
+        readCache.invalidate(ReadCache.item(1), ReadCache.ITEMS);
+        assertNull(readCache.get("1 /items/1"));
+        assertNull(readCache.get("1 /items?from=&size="));
+        assertSame(ok, readCache.get("1 /items/2"));
+    }
+
+    @Test
+    void invalidateAll_ok() {
+        readCache.put("1 /users/1", ok, readCache.generation(), List.of(ReadCache.USERS));
+        readCache.invalidateAll();
+        assertNull(readCache.get("1 /users/1"));
+    }
+
+    @Test
+    void disconnected_off_and_cleared() {
+        readCache.put("1 /users/1", ok, readCache.generation(), List.of(ReadCache.USERS));
+        readCache.disconnected();
+        assertNull(readCache.get("1 /users/1"));
+
+        readCache.put("1 /users/1", ok, readCache.generation(), List.of(ReadCache.USERS));
+        readCache.connected();
+        assertNull(readCache.get("1 /users/1"));
+
+        readCache.put("1 /users/1", ok, readCache.generation(), List.of(ReadCache.USERS));
+        assertSame(ok, readCache.get("1 /users/1"));
+    }
+}
@@ -0,0 +1,37 @@
+package ru.practicum.shareit.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DataBufferFluxHttpMessageConverterTest {
+    private final DataBufferFluxHttpMessageConverter converter = new DataBufferFluxHttpMessageConverter();
+
+    @Test
+    void canWrite_publisher_only() {
+        assertTrue(converter.canWrite(Flux.class, MediaType.APPLICATION_JSON));
+        assertFalse(converter.canWrite(byte[].class, MediaType.APPLICATION_JSON));
+        assertFalse(converter.canRead(Flux.class, MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    void write_chunks_in_order() throws Exception {
+        Flux<DataBuffer> body = Flux.just("[{\"id\":1},", "{\"id\":2}]")
+                .map(chunk -> DefaultDataBufferFactory.sharedInstance.wrap(chunk.getBytes(StandardCharsets.UTF_8)));
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+
+        converter.write(body, MediaType.APPLICATION_JSON, output);
+
+        assertEquals("[{\"id\":1},{\"id\":2}]", output.getBodyAsString(StandardCharsets.UTF_8));
+        assertEquals(MediaType.APPLICATION_JSON, output.getHeaders().getContentType());
+    }
+}
@@ -3,7 +3,11 @@ package ru.practicum.shareit.booking;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.modelmapper.ModelMapper;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingPageDto;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
 import ru.practicum.shareit.booking.service.BookingService;
@@ -14,6 +18,7 @@ import javax.validation.Valid;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.Positive;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 @Slf4j
@@ -24,6 +29,7 @@ public class BookingController {
     private final BookingService bookingService;
     private final ModelMapper modelMapper;
     private static final String OWNER_ID_HOLDER = "X-Sharer-User-Id";
+    private static final String NEXT_CURSOR_HOLDER = "X-Next-Cursor";
 
     @PostMapping
     public BookingResponseDto add(@RequestHeader(OWNER_ID_HOLDER) long userId,
@@ -33,6 +39,14 @@ public class BookingController {
         return bookingService.add(userId, bookingRequestDto);
     }
 
+    @PostMapping(path = "/batch")
+    public List<BookingBatchResultDto> addBatch(@RequestHeader(OWNER_ID_HOLDER) long userId,
+                                                @RequestBody List<BookingRequestDto> bookingRequestDtos)
+            throws NoContentException, BadRequestException {
+        log.info("Got booking batch add request from userId = {}, size = {}", userId, bookingRequestDtos.size());
+        return bookingService.addBatch(userId, bookingRequestDtos);
+    }
+
     @PatchMapping(path = "/{bookingId}")
     public BookingResponseDto setAppruve(@RequestHeader(OWNER_ID_HOLDER) long userId,
                                          @PathVariable long bookingId,
@@ -44,41 +58,63 @@ public class BookingController {
     }
 
 
+    // 304 по If-None-Match, как в ItemController.getItem
     @GetMapping(path = "{bookingId}")
     public BookingResponseDto getFromBookerOrOwner(@RequestHeader(OWNER_ID_HOLDER) long userId,
-                                                   @PathVariable long bookingId)
+                                                   @PathVariable long bookingId,
+                                                   WebRequest request)
             throws NoContentException, BadRequestException {
         log.info("Got all user booking request from userId = {}, bookingId = {}", userId, bookingId);
+        Optional<String> eTag = bookingService.getETag(userId, bookingId);
+        if (eTag.isPresent() && request.checkNotModified(eTag.get())) {
+            return null;
+        }
         return modelMapper.map(bookingService.getFromBookerOrOwner(userId, bookingId), BookingResponseDto.class);
     }
 
     @GetMapping()
-    public List<BookingResponseDto> getFromUser(
+    public ResponseEntity<List<BookingResponseDto>> getFromUser(
             @RequestHeader(OWNER_ID_HOLDER) long userId,
             @RequestParam(value = "state", required = false) String state,
             @RequestParam(value = "from", required = false)
             @Min(value = 0, message = "The value must be positive")
             Optional<Integer> from,
             @Positive
-            @RequestParam(value = "size", required = false) Optional<Integer> size
+            @RequestParam(value = "size", required = false) Optional<Integer> size,
+            @RequestParam(value = "cursor", required = false) String cursor
     ) throws NoContentException, BadRequestException {
-        log.info("Got booking by state request from userId = {}, state = {}, from = {}, size = {}",
-                userId, state, from, size);
-        return bookingService.getFromUserByRequest(userId, state, false, from, size);
+        log.info("Got booking by state request from userId = {}, state = {}, from = {}, size = {}, cursor = {}",
+                userId, state, from, size, cursor);
+        if (Objects.nonNull(cursor)) {
+            return byCursor(bookingService.getFromUserByCursor(userId, state, false, cursor, size));
+        }
+        return ResponseEntity.ok(bookingService.getFromUserByRequest(userId, state, false, from, size));
     }
 
     @GetMapping(path = "/owner")
-    public List<BookingResponseDto> getFromOwner(
+    public ResponseEntity<List<BookingResponseDto>> getFromOwner(
             @RequestHeader(OWNER_ID_HOLDER) long userId,
             @RequestParam(value = "state", required = false) String state,
             @RequestParam(value = "from", required = false)
             @Min(value = 0, message = "The value must be positive")
             Optional<Integer> from,
             @Positive
-            @RequestParam(value = "size", required = false) Optional<Integer> size
+            @RequestParam(value = "size", required = false) Optional<Integer> size,
+            @RequestParam(value = "cursor", required = false) String cursor
     ) throws NoContentException, BadRequestException {
-        log.info("Got booking by state request from owner id = {}, state = {}", userId, state);
-        return bookingService.getFromUserByRequest(userId, state, true, from, size);
+        log.info("Got booking by state request from owner id = {}, state = {}, cursor = {}", userId, state, cursor);
+        if (Objects.nonNull(cursor)) {
+            return byCursor(bookingService.getFromUserByCursor(userId, state, true, cursor, size));
+        }
+        return ResponseEntity.ok(bookingService.getFromUserByRequest(userId, state, true, from, size));
+    }
+
+    private static ResponseEntity<List<BookingResponseDto>> byCursor(BookingPageDto page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (Objects.nonNull(page.getNextCursor())) {
+            response.header(NEXT_CURSOR_HOLDER, page.getNextCursor());
+        }
+        return response.body(page.getBookings());
     }
 
 }
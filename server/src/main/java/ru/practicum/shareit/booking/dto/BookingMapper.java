@@ -0,0 +1,56 @@
+package ru.practicum.shareit.booking.dto;
+
+import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.dto.ItemMapper;
+import ru.practicum.shareit.item.dto.ItemResponseDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.dto.UserMapper;
+import ru.practicum.shareit.user.dto.UserResponseDto;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Objects;
+
+public final class BookingMapper {
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    private BookingMapper() {
+    }
+
+    public static BookingResponseDto toResponseDto(Booking booking) {
+        return toResponseDto(booking.getId(), booking.getStart(), booking.getEnd(), booking.getStatus(),
+                Objects.isNull(booking.getItem()) ? null : ItemMapper.toResponseDto(booking.getItem()),
+                Objects.isNull(booking.getBooker()) ? null : UserMapper.toResponseDto(booking.getBooker()));
+    }
+
+    public static BookingResponseDto toResponseDto(Long id, LocalDateTime start, LocalDateTime end,
+                                                   BookingStatus status, ItemResponseDto item,
+                                                   UserResponseDto booker) {
+        return BookingResponseDto.builder()
+                .id(id)
+                .start(format(start))
+                .end(format(end))
+                .item(item)
+                .booker(booker)
+                .status(status)
+                .build();
+    }
+
+    // Вещь и арендатор подставляются сервисом после проверок, здесь только ссылка на вещь по id
+    public static Booking toBooking(BookingRequestDto bookingRequestDto) {
+        Booking booking = new Booking();
+        booking.setId(bookingRequestDto.getId());
+        booking.setStart(bookingRequestDto.getStart());
+        booking.setEnd(bookingRequestDto.getEnd());
+        booking.setStatus(bookingRequestDto.getStatus());
+        if (Objects.nonNull(bookingRequestDto.getItemId())) {
+            booking.setItem(Item.builder().id(bookingRequestDto.getItemId()).build());
+        }
+        return booking;
+    }
+
+    private static String format(LocalDateTime dateTime) {
+        return Objects.isNull(dateTime) ? null : DATE_TIME_FORMATTER.format(dateTime);
+    }
+}
@@ -3,6 +3,7 @@ package ru.practicum.shareit.booking.model;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import org.hibernate.annotations.DynamicUpdate;
 import ru.practicum.shareit.booking.enums.BookingStatus;
@@ -37,6 +38,10 @@ public class Booking /*implements Comparable<Booking>*/ {
     private User booker;
     @Column(name = "status_id")
     private BookingStatus status;
+    // +1 в updateStatus, см. BookingRepository.findVersionTag
+    @Column(name = "version", insertable = false, updatable = false, columnDefinition = "bigint default 0 not null")
+    @EqualsAndHashCode.Exclude
+    private Long version;
 
     public Long getItemId() {
         return item.getId();
@@ -0,0 +1,70 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+
+import javax.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Сериализует создание/подтверждение бронирований только одной и той же вещи.
+// striped - блокировка в памяти по itemId, advisory - pg_advisory_xact_lock (только Postgres).
+// Блокировка держится до конца транзакции, иначе параллельная транзакция не увидит незакоммиченную бронь.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookingAdmissionLock {
+    private final BookingRepository bookingRepository;
+    private ReentrantLock[] stripes;
+
+    @Value("${shareit.booking.admission.mode:striped}")
+    private String mode;
+
+    @Value("${shareit.booking.admission.stripes:64}")
+    private int stripesCount;
+
+    public void lock(long itemId) {
+        lockAll(List.of(itemId));
+    }
+
+    // Для пакета: полосы (или id для advisory) берутся по возрастанию, чтобы два пакета не ждали друг друга
+    public void lockAll(Collection<Long> itemIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Блокировка вещи возможна только внутри транзакции");
+        }
+        if ("advisory".equalsIgnoreCase(mode)) {
+            itemIds.stream().sorted().distinct().forEach(bookingRepository::lockItem);
+            return;
+        }
+        itemIds.stream()
+                .mapToInt(itemId -> Math.floorMod(Long.hashCode(itemId), stripes.length))
+                .sorted()
+                .distinct()
+                .forEach(stripe -> lockStripe(stripes[stripe]));
+    }
+
+    private static void lockStripe(ReentrantLock lock) {
+        lock.lock();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                lock.unlock();
+            }
+        });
+    }
+
+    @PostConstruct
+    public void init() {
+        stripes = new ReentrantLock[Math.max(1, stripesCount)];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        log.info("Режим допуска бронирований: {}, полос блокировки: {}", mode, stripes.length);
+    }
+}
@@ -1,5 +1,7 @@
 package ru.practicum.shareit.booking.service;
 
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingPageDto;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
 import ru.practicum.shareit.booking.enums.BookingStatus;
@@ -19,14 +21,22 @@ public interface BookingService {
 
     BookingResponseDto add(Long userId, BookingRequestDto booking) throws NoContentException, BadRequestException;
 
+    List<BookingBatchResultDto> addBatch(Long userId, List<BookingRequestDto> bookings)
+            throws NoContentException, BadRequestException;
+
     BookingResponseDto setState(Long userId, Long bookingId, String approved)
             throws BadRequestException, NoContentException;
 
     BookingResponseDto getFromBookerOrOwner(long userId, long bookingId) throws NoContentException;
 
+    Optional<String> getETag(long userId, long bookingId);
+
     List<BookingResponseDto> getFromUserByRequest(long userId, String state, Boolean ownerOnly, Optional<Integer> from, Optional<Integer> size)
             throws BadRequestException, NoContentException;
 
+    BookingPageDto getFromUserByCursor(long userId, String state, Boolean ownerOnly, String cursor, Optional<Integer> size)
+            throws BadRequestException, NoContentException;
+
     boolean isBookingAvailable(Long itemId, LocalDateTime start, LocalDateTime end);
 
     BookingStatus getStateByUser(Booking booking, Long userId, String state) throws BadRequestException, NoContentException;
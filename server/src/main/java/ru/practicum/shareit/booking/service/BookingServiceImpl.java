@@ -3,46 +3,81 @@ package ru.practicum.shareit.booking.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.DigestUtils;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingPageDto;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
 import ru.practicum.shareit.booking.enums.BookingRequestStatus;
 import ru.practicum.shareit.booking.enums.BookingStatus;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.storage.BookingIntervalIndex;
 import ru.practicum.shareit.booking.storage.BookingRepository;
 import ru.practicum.shareit.error.exceptions.BadRequestException;
 import ru.practicum.shareit.error.exceptions.NoContentException;
+import ru.practicum.shareit.invalidation.InvalidationEvent;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
 
-import javax.persistence.EntityManager;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Repository
 @RequiredArgsConstructor
-@Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.SERIALIZABLE)
+@Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.READ_COMMITTED)
 public class BookingServiceImpl implements BookingService {
+    private static final String EXCLUSION_VIOLATION = "23P01";
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final List<BookingStatus> ACTIVE_STATUSES = List.of(BookingStatus.WAITING, BookingStatus.APPROVED);
     private final BookingRepository bookingRepository;
+    private final BookingIntervalIndex bookingIndex;
+    private final BookingAdmissionLock admissionLock;
     private final ItemService itemService;
     private final UserService userService;
     private final ModelMapper modelMapper;
-    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // На Postgres пересечения периодов запрещает EXCLUDE-ограничение bookings_no_overlap (schema-postgresql.sql)
+    @Value("${shareit.booking.exclusion-constraint:false}")
+    private boolean exclusionConstraint;
+
+    @Value("${shareit.booking.batch.max-size:100}")
+    private int batchMaxSize;
+
+    // projection - списки читаются сразу в DTO, entity - через сущности
+    @Value("${shareit.read.mode:entity}")
+    private String readMode;
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public Booking getById(Long bookingId) throws NoContentException {
-        if (bookingRepository.existsById(bookingId)) {
-            return bookingRepository.findById(bookingId).get();
+        Optional<Booking> booking = bookingRepository.findById(bookingId);
+        if (booking.isPresent()) {
+            return booking.get();
         }
         String msg = "Вещь недоступна";
         log.info(msg);
@@ -50,20 +85,24 @@ public class BookingServiceImpl implements BookingService {
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public BookingResponseDto getDtoById(Long bookingId) throws NoContentException {
         return modelMapper.map(getById(bookingId), BookingResponseDto.class);
     }
 
     @Override
-    @Transactional
+    @Transactional(rollbackFor = {NoContentException.class, BadRequestException.class})
     public BookingResponseDto add(Long userId, BookingRequestDto bookingRequestDto)
             throws NoContentException, BadRequestException {
         Item item = itemService.getItemById(bookingRequestDto.getItemId(), userId);
         User booker = userService.getUserById(userId);
         Booking booking = modelMapper.map(bookingRequestDto, Booking.class);
+        // При EXCLUDE-ограничении пересечения отклоняет база, блокировка не нужна
+        if (!exclusionConstraint) {
+            admissionLock.lock(item.getId());
+        }
         String msg;
-        log.info("---> {}", booking.toString());
+        log.debug("---> {}", booking);
         if (!item.getAvailable()) {
             msg = "Вещь недоступна к бронированию";
             log.info(msg);
@@ -76,47 +115,157 @@ public class BookingServiceImpl implements BookingService {
             msg = "Этот статус запрещен при создании бронирования";
             log.info(msg);
             throw new BadRequestException(msg);
-        } else if (!isBookingAvailable(item.getId(), booking.getStart(), booking.getEnd())) {
-            msg = String.format("Вещь недоступна к бронированию, период занят"
-                            + "status=%s, start=%s, end=%s",
-                    booking.getStatus(), booking.getStart(), booking.getEnd());
-            log.info(msg);
-            throw new NoContentException(msg);
+        } else if ((!exclusionConstraint || bookingIndex.isWarm(item.getId()))
+                && !isBookingAvailable(item.getId(), booking.getStart(), booking.getEnd())) {
+            throw periodBusy(booking);
         } else {
+            booking.setItem(item);
             booking.setBooker(booker);
             booking.setStatus(BookingStatus.WAITING);
-            Booking saved = bookingRepository.save(booking);
-            entityManager.clear();
-            msg = String.format("Создание бронирования id=%s, status=%s, start=%s, end=%s",
+            Booking saved;
+            try {
+                saved = bookingRepository.save(booking);
+            } catch (DataIntegrityViolationException e) {
+                if (isOverlapViolation(e)) {
+                    throw periodBusy(booking);
+                }
+                throw e;
+            }
+            if (!bookingIndex.add(saved)) {
+                throw periodBusy(saved);
+            }
+            log.info("Создание бронирования id={}, status={}, start={}, end={}",
                     saved.getId(), saved.getStatus(), saved.getStart(), saved.getEnd());
+            // Бронирования видны во владельческом представлении вещи
+            eventPublisher.publishEvent(InvalidationEvent.item(item.getId()));
+            // Вещь и арендатор уже загружены, перечитывать бронирование не нужно
+            return modelMapper.map(saved, BookingResponseDto.class);
+        }
+    }
+
+    // Все записи пакета проверяются одним проходом: вещи - одним запросом, занятые периоды - одним запросом,
+    // друг с другом - в памяти. Прошедшие проверку вставляются одним JDBC batch, отказы возвращаются по записям.
+    // Вещи пакета блокируются в любом режиме: пакеты не гоняются друг с другом. Одиночные add/setState
+    // при EXCLUDE-ограничении не блокируют, их пересечение с пакетом база отклоняет при вставке - такие записи
+    // возвращаются с ошибкой по отдельности
+    @Override
+    @Transactional(rollbackFor = {NoContentException.class, BadRequestException.class})
+    public List<BookingBatchResultDto> addBatch(Long userId, List<BookingRequestDto> bookingRequestDtos)
+            throws NoContentException, BadRequestException {
+        if (bookingRequestDtos.isEmpty() || bookingRequestDtos.size() > batchMaxSize) {
+            String msg = String.format("В пакете должно быть от 1 до %s бронирований", batchMaxSize);
             log.info(msg);
-            return getDtoById(saved.getId());
+            throw new BadRequestException(msg);
         }
+        User booker = userService.getUserById(userId);
+        Set<Long> itemIds = bookingRequestDtos.stream()
+                .map(BookingRequestDto::getItemId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        admissionLock.lockAll(itemIds);
+        Map<Long, Item> items = itemService.getItemsByIds(itemIds).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        Map<Long, List<Booking>> taken = takenInPeriodOf(items.keySet(), bookingRequestDtos);
+
+        List<Booking> bookings = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        for (BookingRequestDto bookingRequestDto : bookingRequestDtos) {
+            Item item = items.get(bookingRequestDto.getItemId());
+            String error = batchError(bookingRequestDto, item, booker, taken);
+            Booking booking = null;
+            if (Objects.isNull(error)) {
+                booking = modelMapper.map(bookingRequestDto, Booking.class);
+                booking.setItem(item);
+                booking.setBooker(booker);
+                booking.setStatus(BookingStatus.WAITING);
+                taken.computeIfAbsent(item.getId(), id -> new ArrayList<>()).add(booking);
+            }
+            bookings.add(booking);
+            errors.add(error);
+        }
+
+        List<Booking> accepted = bookings.stream().filter(Objects::nonNull).collect(Collectors.toList());
+        Set<Booking> busy = Collections.newSetFromMap(new IdentityHashMap<>());
+        busy.addAll(bookingRepository.insertAll(accepted));
+        if (!busy.isEmpty()) {
+            for (int i = 0; i < bookings.size(); i++) {
+                if (busy.contains(bookings.get(i))) {
+                    bookings.set(i, null);
+                    errors.set(i, "Вещь недоступна к бронированию, период занят");
+                }
+            }
+            accepted.removeIf(busy::contains);
+        }
+        for (Booking booking : accepted) {
+            if (!bookingIndex.add(booking)) {
+                throw periodBusy(booking);
+            }
+        }
+        log.info("Пакетное создание бронирований: создано {} из {}", accepted.size(), bookingRequestDtos.size());
+        accepted.stream()
+                .map(Booking::getItemId)
+                .distinct()
+                .forEach(itemId -> eventPublisher.publishEvent(InvalidationEvent.item(itemId)));
+
+        List<BookingBatchResultDto> results = new ArrayList<>();
+        for (int i = 0; i < bookings.size(); i++) {
+            Booking booking = bookings.get(i);
+            results.add(BookingBatchResultDto.builder()
+                    .index(i)
+                    .booking(Objects.isNull(booking) ? null : modelMapper.map(booking, BookingResponseDto.class))
+                    .error(errors.get(i))
+                    .build());
+        }
+        return results;
     }
 
     @Override
-    @Transactional
+    @Transactional(rollbackFor = {NoContentException.class, BadRequestException.class})
     public BookingResponseDto setState(Long userId, Long bookingId, String state)
             throws BadRequestException, NoContentException {
         Booking booking = getById(bookingId);
+        if (!exclusionConstraint) {
+            admissionLock.lock(booking.getItemId());
+        }
         BookingStatus status = getStateByUser(booking, userId, state);
         LocalDateTime start = booking.getStart();
         LocalDateTime end = booking.getEnd();
-        String msg = String.format("Подтверждение бронирования id=%s, status=%s, start=%s, end=%s",
+        log.info("Подтверждение бронирования id={}, status={}, start={}, end={}",
                 bookingId, status, start, end);
-        log.info(msg);
         if (booking.getStatus().equals(BookingStatus.APPROVED)) {
-            msg = String.format("Статус бронирования %s уже менять нельзя!", bookingId);
+            String msg = String.format("Статус бронирования %s уже менять нельзя!", bookingId);
             log.info(msg);
             throw new BadRequestException(msg);
         }
-        bookingRepository.updateStatus(status.ordinal(), bookingId, userId);
-        entityManager.clear();
-        return getDtoById(bookingId);
+        int updatedRows;
+        try {
+            updatedRows = bookingRepository.updateStatus(
+                    status.ordinal(), booking.getStatus().ordinal(), bookingId, userId);
+        } catch (DataIntegrityViolationException e) {
+            if (isOverlapViolation(e)) {
+                throw periodBusy(booking);
+            }
+            throw e;
+        }
+        // Бронирование прочитано до блокировки: параллельный запрос мог уже сменить статус.
+        // Отмена арендатором не обновляет строк и раньше (UPDATE только от владельца)
+        if (updatedRows == 0 && status != BookingStatus.CANCELED) {
+            String msg = String.format("Статус бронирования %s уже изменен параллельно", bookingId);
+            log.info(msg);
+            throw new BadRequestException(msg);
+        }
+        // Сущность в контексте не меняем: иначе при flush ушел бы второй UPDATE
+        BookingResponseDto updated = modelMapper.map(booking, BookingResponseDto.class);
+        if (updatedRows > 0) {
+            bookingIndex.updateStatus(booking, status);
+            updated.setStatus(status);
+            eventPublisher.publishEvent(InvalidationEvent.item(booking.getItemId()));
+        }
+        return updated;
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public BookingResponseDto getFromBookerOrOwner(long userId, long bookingId)
             throws NoContentException {
         Booking booking = getById(bookingId);
@@ -129,7 +278,14 @@ public class BookingServiceImpl implements BookingService {
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
+    public Optional<String> getETag(long userId, long bookingId) {
+        return bookingRepository.findVersionTag(bookingId, userId)
+                .map(tag -> DigestUtils.md5DigestAsHex(tag.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<BookingResponseDto> getFromUserByRequest(
             long userId, String state, Boolean ownerOnly,
             Optional<Integer> from,
@@ -143,6 +299,11 @@ public class BookingServiceImpl implements BookingService {
         String strState = String.valueOf(BookingRequestStatus.getValue(state));
         List<Booking> bookingList;
         User user = userService.getUserById(userId);
+        if ("projection".equalsIgnoreCase(readMode)) {
+            return from.isEmpty() || size.isEmpty()
+                    ? bookingRepository.getDtoFromUserByState(userId, strState, ownerOnly)
+                    : bookingRepository.getDtoFromUserByStatePage(userId, strState, ownerOnly, from.get(), size.get());
+        }
         if (from.isEmpty() || size.isEmpty()) {
             bookingList = bookingRepository.getFromUserByState(userId, strState, ownerOnly);
         } else {
@@ -156,16 +317,54 @@ public class BookingServiceImpl implements BookingService {
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
+    public BookingPageDto getFromUserByCursor(
+            long userId, String state, Boolean ownerOnly,
+            String cursor,
+            Optional<Integer> size
+    ) throws BadRequestException, NoContentException {
+        if (size.orElse(1) <= 0) {
+            String msg = "Нет такой страницы";
+            log.info(msg);
+            throw new BadRequestException(msg);
+        }
+        int limit = size.orElse(DEFAULT_PAGE_SIZE);
+        String strState = String.valueOf(BookingRequestStatus.getValue(state));
+        userService.getUserById(userId);
+        // Берем на одну запись больше, чтобы понять, есть ли следующая страница
+        List<Booking> bookingList;
+        if (Objects.isNull(cursor) || cursor.isBlank()) {
+            bookingList = bookingRepository.getFromUserByStatePage(userId, strState, ownerOnly, 0, limit + 1);
+        } else {
+            BookingCursor after = BookingCursor.decode(cursor);
+            bookingList = bookingRepository.getFromUserByStateAfter(
+                    userId, strState, ownerOnly, after.getEnd(), after.getBookingId(), limit + 1);
+        }
+        String nextCursor = null;
+        if (bookingList.size() > limit) {
+            bookingList = bookingList.subList(0, limit);
+            nextCursor = BookingCursor.of(bookingList.get(limit - 1)).encode();
+        }
+        return new BookingPageDto(bookingList.stream()
+                .map(booking -> modelMapper.map(booking, BookingResponseDto.class))
+                .collect(Collectors.toList()), nextCursor);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public boolean isBookingAvailable(Long itemId, LocalDateTime start, LocalDateTime end) {
-        boolean isAllowed = bookingRepository.isBookingAvailable(itemId, start, end);
-        String msg = String.format("Бронь %s - %s вещь id{%s} свободна: {%s} ", start, end, itemId, isAllowed);
-        log.info(msg);
+        boolean isAllowed;
+        if (bookingIndex.isWarm(itemId)) {
+            isAllowed = bookingIndex.isAvailable(itemId, start, end);
+        } else {
+            isAllowed = bookingRepository.isBookingAvailable(itemId, start, end);
+        }
+        log.debug("Бронь {} - {} вещь id{{}} свободна: {{}} ", start, end, itemId, isAllowed);
         return isAllowed;
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public BookingStatus getStateByUser(Booking booking, Long userId, String state) throws NoContentException {
         Long ownerId = booking.getItem().getOwner().getId();
         Long bookerId = booking.getBooker().getId();
@@ -194,4 +393,55 @@ public class BookingServiceImpl implements BookingService {
             throw new NoContentException(msg);
         }
     }
+
+    // Активные бронирования вещей пакета в пределах от самого раннего начала до самого позднего конца
+    private Map<Long, List<Booking>> takenInPeriodOf(Set<Long> itemIds, List<BookingRequestDto> bookingRequestDtos) {
+        Optional<LocalDateTime> from = bookingRequestDtos.stream().map(BookingRequestDto::getStart)
+                .filter(Objects::nonNull).min(Comparator.naturalOrder());
+        Optional<LocalDateTime> to = bookingRequestDtos.stream().map(BookingRequestDto::getEnd)
+                .filter(Objects::nonNull).max(Comparator.naturalOrder());
+        if (itemIds.isEmpty() || from.isEmpty() || to.isEmpty()) {
+            return new HashMap<>();
+        }
+        return bookingRepository.findAllByItemIdsInPeriod(itemIds, ACTIVE_STATUSES, from.get(), to.get()).stream()
+                .collect(Collectors.groupingBy(Booking::getItemId, HashMap::new, Collectors.toList()));
+    }
+
+    // Те же проверки, что у одиночного создания; null - запись можно создавать
+    private static String batchError(BookingRequestDto bookingRequestDto, Item item, User booker,
+                                     Map<Long, List<Booking>> taken) {
+        LocalDateTime start = bookingRequestDto.getStart();
+        LocalDateTime end = bookingRequestDto.getEnd();
+        if (Objects.isNull(start) || Objects.isNull(end) || !start.isBefore(end)) {
+            return "Дата начала должна быть раньше дата конца периода";
+        } else if (start.isBefore(LocalDateTime.now())) {
+            return "Значение поля 'start' не может быть в прошлом";
+        } else if (Objects.isNull(item)) {
+            return String.format("Нет вещи с 'id' %s.", bookingRequestDto.getItemId());
+        } else if (!item.getAvailable()) {
+            return "Вещь недоступна к бронированию";
+        } else if (booker.equals(item.getOwner())) {
+            return "Попытка забронировать свою вещь";
+        } else if (bookingRequestDto.getStatus() != BookingStatus.WAITING
+                && Objects.nonNull(bookingRequestDto.getStatus())) {
+            return "Этот статус запрещен при создании бронирования";
+        } else if (taken.getOrDefault(item.getId(), List.of()).stream()
+                .anyMatch(other -> !other.getStart().isAfter(end) && !other.getEnd().isBefore(start))) {
+            return "Вещь недоступна к бронированию, период занят";
+        }
+        return null;
+    }
+
+    private NoContentException periodBusy(Booking booking) {
+        String msg = String.format("Вещь недоступна к бронированию, период занят"
+                        + "status=%s, start=%s, end=%s",
+                booking.getStatus(), booking.getStart(), booking.getEnd());
+        log.info(msg);
+        return new NoContentException(msg);
+    }
+
+    private static boolean isOverlapViolation(DataIntegrityViolationException e) {
+        Throwable cause = e.getMostSpecificCause();
+        return cause instanceof SQLException && EXCLUSION_VIOLATION.equals(((SQLException) cause).getSQLState());
+    }
 }
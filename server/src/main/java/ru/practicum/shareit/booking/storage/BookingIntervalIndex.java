@@ -0,0 +1,249 @@
+package ru.practicum.shareit.booking.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.booking.model.Booking;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Периоды активных (WAITING/APPROVED) бронирований по вещам, отсортированные по началу.
+// Пока индекс не прогрет или вещь помечена холодной - проверяем запросом к базе.
+// Закончившиеся периоды новым бронированиям не мешают: они не грузятся и периодически вычищаются.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookingIntervalIndex {
+    private static final List<BookingStatus> ACTIVE = List.of(BookingStatus.WAITING, BookingStatus.APPROVED);
+
+    private final BookingRepository bookingRepository;
+    private final Map<Long, NavigableMap<LocalDateTime, Span>> items = new ConcurrentHashMap<>();
+    private final Set<Long> coldItems = ConcurrentHashMap.newKeySet();
+    private final Object warmUpLock = new Object();
+    // Изменения, закоммиченные во время прогрева: снимок мог их не увидеть, применяются после него
+    private List<Runnable> pending;
+    private volatile boolean warm = false;
+
+    @Value("${shareit.booking.interval-index.enabled:true}")
+    private boolean enabled;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) {
+            log.info("Индекс бронирований отключен");
+            return;
+        }
+        synchronized (warmUpLock) {
+            pending = new ArrayList<>();
+        }
+        List<Booking> active = bookingRepository.findAllByStatusInAndEndGreaterThanEqual(ACTIVE, LocalDateTime.now());
+        for (Booking booking : active) {
+            if (!put(booking)) {
+                coldItems.add(booking.getItemId());
+            }
+        }
+        synchronized (warmUpLock) {
+            pending.forEach(Runnable::run);
+            pending = null;
+            warm = true;
+        }
+        log.info("Индекс бронирований прогрет: вещей {}, бронирований {}, холодных вещей {}",
+                items.size(), active.size(), coldItems.size());
+    }
+
+    public boolean isWarm(long itemId) {
+        return warm && !coldItems.contains(itemId);
+    }
+
+    public boolean isAvailable(long itemId, LocalDateTime start, LocalDateTime end) {
+        NavigableMap<LocalDateTime, Span> spans = items.get(itemId);
+        if (Objects.isNull(spans)) {
+            return true;
+        }
+        synchronized (spans) {
+            return !overlaps(spans, start, end);
+        }
+    }
+
+    // false - период уже занят параллельным бронированием; при откате транзакции период освобождается
+    public boolean add(Booking booking) {
+        if (!enabled || coldItems.contains(booking.getItemId())) {
+            return true;
+        }
+        if (!put(booking)) {
+            return false;
+        }
+        afterCompletion(committed -> {
+            if (!committed) {
+                remove(booking.getItemId(), booking.getId());
+            }
+        });
+        return true;
+    }
+
+    public void updateStatus(Booking booking, BookingStatus status) {
+        afterCompletion(committed -> {
+            if (committed) {
+                applyWhenWarm(() -> {
+                    if (ACTIVE.contains(status)) {
+                        if (!contains(booking.getItemId(), booking.getId()) && !put(booking)) {
+                            log.info("Вещь id={} помечена холодной: активные бронирования пересекаются",
+                                    booking.getItemId());
+                            coldItems.add(booking.getItemId());
+                        }
+                    } else {
+                        remove(booking.getItemId(), booking.getId());
+                    }
+                });
+            }
+        });
+    }
+
+    public void removeItem(long itemId) {
+        afterCompletion(committed -> {
+            if (committed) {
+                applyWhenWarm(() -> items.remove(itemId));
+            }
+        });
+    }
+
+    public void removeBooker(long bookerId) {
+        afterCompletion(committed -> {
+            if (committed) {
+                applyWhenWarm(() -> items.values().forEach(spans -> {
+                    synchronized (spans) {
+                        spans.values().removeIf(span -> span.getBookerId() == bookerId);
+                    }
+                }));
+            }
+        });
+    }
+
+    // Пустые карты вещей не удаляются: параллельный put мог уже взять ссылку на карту
+    @Scheduled(fixedDelayString = "${shareit.booking.interval-index.prune-ms:3600000}")
+    public void prune() {
+        if (!warm) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        items.values().forEach(spans -> {
+            synchronized (spans) {
+                prunePast(spans, now);
+            }
+        });
+    }
+
+    // Во время прогрева изменение откладывается до конца снимка, в остальное время применяется сразу:
+    // add кладет период и до прогрева, поэтому отмену брони терять нельзя
+    private void applyWhenWarm(Runnable change) {
+        if (warm) {
+            change.run();
+            return;
+        }
+        if (!enabled) {
+            return;
+        }
+        synchronized (warmUpLock) {
+            if (Objects.nonNull(pending)) {
+                pending.add(change);
+            } else {
+                change.run();
+            }
+        }
+    }
+
+    private boolean put(Booking booking) {
+        NavigableMap<LocalDateTime, Span> spans = items.computeIfAbsent(booking.getItemId(), id -> new TreeMap<>());
+        synchronized (spans) {
+            prunePast(spans, LocalDateTime.now());
+            Span existing = spans.get(booking.getStart());
+            if (Objects.nonNull(existing) && Objects.equals(existing.getBookingId(), booking.getId())) {
+                return true;
+            }
+            if (overlaps(spans, booking.getStart(), booking.getEnd())) {
+                return false;
+            }
+            spans.put(booking.getStart(),
+                    new Span(booking.getId(), booking.getBooker().getId(), booking.getStart(), booking.getEnd()));
+            return true;
+        }
+    }
+
+    private boolean contains(long itemId, long bookingId) {
+        NavigableMap<LocalDateTime, Span> spans = items.get(itemId);
+        if (Objects.isNull(spans)) {
+            return false;
+        }
+        synchronized (spans) {
+            return spans.values().stream().anyMatch(span -> span.getBookingId() == bookingId);
+        }
+    }
+
+    private void remove(long itemId, long bookingId) {
+        NavigableMap<LocalDateTime, Span> spans = items.get(itemId);
+        if (Objects.nonNull(spans)) {
+            synchronized (spans) {
+                spans.values().removeIf(span -> span.getBookingId() == bookingId);
+            }
+        }
+    }
+
+    // Периоды внутри вещи не пересекаются, значит у последнего начавшегося не позже end
+    // самый поздний конец среди всех начавшихся не позже end. Границы включительно, как BETWEEN в запросе.
+    private static boolean overlaps(NavigableMap<LocalDateTime, Span> spans, LocalDateTime start, LocalDateTime end) {
+        Map.Entry<LocalDateTime, Span> floor = spans.floorEntry(end);
+        return Objects.nonNull(floor) && !floor.getValue().getEnd().isBefore(start);
+    }
+
+    // Периоды не пересекаются, поэтому концы идут в том же порядке, что и начала: прошедшие - в голове карты
+    private static void prunePast(NavigableMap<LocalDateTime, Span> spans, LocalDateTime now) {
+        Iterator<Span> iterator = spans.values().iterator();
+        while (iterator.hasNext() && iterator.next().getEnd().isBefore(now)) {
+            iterator.remove();
+        }
+    }
+
+    private static void afterCompletion(CompletionAction action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    action.run(status == STATUS_COMMITTED);
+                }
+            });
+        } else {
+            action.run(true);
+        }
+    }
+
+    private interface CompletionAction {
+        void run(boolean committed);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class Span {
+        private final long bookingId;
+        private final long bookerId;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+    }
+}
@@ -1,35 +1,69 @@
 package ru.practicum.shareit.booking.storage;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.booking.enums.BookingStatus;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.item.model.Item;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+
+import static org.hibernate.annotations.QueryHints.NATIVE_SPACES;
 
 @EnableJpaRepositories
-public interface BookingRepository extends JpaRepository<Booking, Long> {
+public interface BookingRepository extends JpaRepository<Booking, Long>, BookingStateRepository {
+    // Вещь с владельцем и арендатор - одним запросом с бронированием, а не отдельным select на каждую строку
+    @Override
+    @EntityGraph(attributePaths = {"item", "item.owner", "booker"})
+    Optional<Booking> findById(Long id);
+
+    // Без NATIVE_SPACES Hibernate сбросил бы после native UPDATE все регионы кэша, а не только bookings.
+    // Статус меняется, только если он еще тот, что прочитал вызывающий: 0 строк - его успели поменять
     @Modifying
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "bookings"))
     @Query(value = " UPDATE bookings b\n"
-            + "                SET status_id = :status_id\n"
+            + "                SET status_id = :status_id,\n"
+            + "                    version = version + 1\n"
             + "              WHERE booking_id = :booking_id\n"
+            + "                AND status_id = :expected_status_id\n"
             + "                AND EXISTS (\n"
             + "            select null \n"
             + "              from items i \n"
             + "             where i.owner_user_id = :user_id\n"
             + "                  and i.item_id = b.item_id)",
             nativeQuery = true)
-    void updateStatus(
+    int updateStatus(
             @Param("status_id") Integer statusId,
+            @Param("expected_status_id") Integer expectedStatusId,
             @Param("booking_id") Long bookingId,
             @Param("user_id") Long userId
     );
 
+    // Ответ GET /bookings/{id} зависит от бронирования, вещи и арендатора. Пусто, если бронирования нет
+    // или пользователь не арендатор и не владелец: тогда ошибку отдает обычный путь через сервис
+    @Query(value = "SELECT CONCAT_WS(':', b.version, i.version, u.version) \n"
+            + "       FROM bookings b \n"
+            + "       JOIN items i ON i.item_id = b.item_id \n"
+            + "       JOIN users u ON u.user_id = b.booker_user_id \n"
+            + "      WHERE b.booking_id = :booking_id \n"
+            + "        AND (b.booker_user_id = :user_id OR i.owner_user_id = :user_id)",
+            nativeQuery = true)
+    Optional<String> findVersionTag(
+            @Param("booking_id") long bookingId,
+            @Param("user_id") long userId);
+
+    @Query(value = "SELECT count(*) FROM (SELECT pg_advisory_xact_lock(:item_id)) AS l", nativeQuery = true)
+    long lockItem(@Param("item_id") long itemId);
+
     @Query(value = "SELECT case when count(*) > 0 then false else true end "
             + " FROM bookings b"
             + " WHERE b.item_id = :item_id "
@@ -45,51 +79,6 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
             @Param("date_from") LocalDateTime dateFrom,
             @Param("date_end") LocalDateTime dateEnd);
 
-    @Query(value = "SELECT b.* \n"
-            + "       FROM bookings b\n"
-            + "  LEFT JOIN items i \n"
-            + "         ON i.item_id = b.item_id  \n"
-            + "      WHERE (    (b.booker_user_id = :user_id and :owner_Only = false)\n"
-            + "              OR (i.owner_user_id  = :user_id and :owner_Only = true)) \n"
-            + "        AND (   :state = 'ALL' \n"
-            + "              OR ( :state = 'CURRENT'  and now() BETWEEN b.date_from AND b.date_end ) \n"
-            + "              OR ( :state = 'FUTURE'   and now() < b.date_from ) \n"
-            + "              OR ( :state = 'PAST'     and now() > b.date_end ) \n"
-            + "              OR ( :state = 'WAITING'  and b.status_id = 0 ) \n"
-            + "              OR ( :state = 'REJECTED' and b.status_id = 2)  \n"
-            + "            ) \n"
-            + "      ORDER BY date_end DESC",
-            nativeQuery = true)
-    List<Booking> getFromUserByState(
-            @Param("user_id") long userId,
-            @Param("state") String state,
-            @Param("owner_Only") Boolean ownerOnly
-    );
-
-    @Query(value = "SELECT b.* \n"
-            + "       FROM bookings b\n"
-            + "  LEFT JOIN items i \n"
-            + "         ON i.item_id = b.item_id  \n"
-            + "      WHERE (    (b.booker_user_id = :user_id and :owner_Only = false)\n"
-            + "              OR (i.owner_user_id  = :user_id and :owner_Only = true)) \n"
-            + "        AND (   :state = 'ALL' \n"
-            + "              OR ( :state = 'CURRENT'  and now() BETWEEN b.date_from AND b.date_end ) \n"
-            + "              OR ( :state = 'FUTURE'   and now() < b.date_from ) \n"
-            + "              OR ( :state = 'PAST'     and now() > b.date_end ) \n"
-            + "              OR ( :state = 'WAITING'  and b.status_id = 0 ) \n"
-            + "              OR ( :state = 'REJECTED' and b.status_id = 2)  \n"
-            + "            ) \n"
-            + "      ORDER BY date_end DESC"
-            + " LIMIT :size OFFSET :from",
-            nativeQuery = true)
-    List<Booking> getFromUserByStatePage(
-            @Param("user_id") long userId,
-            @Param("state") String state,
-            @Param("owner_Only") Boolean ownerOnly,
-            @Param("from") Integer from,
-            @Param("size") Integer size
-    );
-
     @Query(value = "SELECT b.* \n "
             + "      FROM bookings as b \n "
             + "      JOIN items as i "
@@ -105,37 +94,26 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
          //   @Param("date_x") LocalDateTime dateX
     );
 
-    List<Booking> findAllByItemInAndStatusOrderByStartAsc(List<Item> item, BookingStatus status);
+    List<Booking> findAllByStatusIn(List<BookingStatus> statuses);
 
-    List<Booking> findAllByItemAndStatusOrderByEndAsc(Item item, BookingStatus status);
+    List<Booking> findAllByStatusInAndEndGreaterThanEqual(List<BookingStatus> statuses, LocalDateTime end);
 
-    @Query(value = "WITH m AS ("
-            + " SELECT item_id, max(date_end) AS max_end "
-            + "    FROM bookings "
-            + "   WHERE item_id = :item_id "
-            + "       AND status_id = 1 \n "
-            + "       AND date_end < now() \n "
-            + "   GROUP BY item_id "
-            + ")"
-            + "SELECT b.* \n "
-            + "  FROM bookings as b JOIN m ON b.item_id = m.item_id AND b.date_end = m.max_end\n ",
-            nativeQuery = true)
-    Booking getLastPrevByItemId(
-            @Param("item_id") long itemId
-    );
+    // Активные бронирования всех вещей пакета, задевающие общий период пакета, - одним запросом
+    @EntityGraph(attributePaths = {"item", "item.owner", "booker"})
+    @Query("SELECT b FROM Booking b "
+            + " WHERE b.item.id IN :itemIds "
+            + "   AND b.status IN :statuses "
+            + "   AND b.start <= :dateEnd "
+            + "   AND b.end >= :dateFrom")
+    List<Booking> findAllByItemIdsInPeriod(
+            @Param("itemIds") Collection<Long> itemIds,
+            @Param("statuses") Collection<BookingStatus> statuses,
+            @Param("dateFrom") LocalDateTime dateFrom,
+            @Param("dateEnd") LocalDateTime dateEnd);
 
-    @Query(value = "WITH m AS ("
-            + " SELECT item_id, min(date_end) AS min_start "
-            + "    FROM bookings "
-            + "   WHERE item_id = :item_id "
-            + "       AND status_id = 1 \n "
-            + "       AND date_from > now() \n "
-            + "   GROUP BY item_id "
-            + ")"
-            + "SELECT b.* \n "
-            + "  FROM bookings as b JOIN m ON b.item_id = m.item_id AND b.date_from = m.min_start \n ",
-            nativeQuery = true)
-    Booking getFirstNextByItemId(
-            @Param("item_id") long itemId
-    );
+    @EntityGraph(attributePaths = {"item", "item.owner", "booker"})
+    List<Booking> findAllByItemInAndStatusOrderByStartAsc(List<Item> item, BookingStatus status);
+
+    @EntityGraph(attributePaths = {"item", "item.owner", "booker"})
+    List<Booking> findAllByItemAndStatusOrderByEndAsc(Item item, BookingStatus status);
 }
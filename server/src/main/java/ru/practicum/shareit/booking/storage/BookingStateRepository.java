@@ -0,0 +1,32 @@
+package ru.practicum.shareit.booking.storage;
+
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.model.Booking;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface BookingStateRepository {
+
+    List<Booking> getFromUserByState(long userId, String state, Boolean ownerOnly);
+
+    List<Booking> getFromUserByStatePage(long userId, String state, Boolean ownerOnly, Integer from, Integer size);
+
+    List<Booking> getFromUserByStateAfter(long userId, String state, Boolean ownerOnly,
+                                          LocalDateTime cursorEnd, long cursorId, Integer size);
+
+    Optional<Booking> getLastPrevByItemId(long itemId, LocalDateTime now);
+
+    Optional<Booking> getFirstNextByItemId(long itemId, LocalDateTime now);
+
+    List<Booking> getLastAndNextByItemIds(Collection<Long> itemIds, LocalDateTime now);
+
+    List<BookingResponseDto> getDtoFromUserByState(long userId, String state, Boolean ownerOnly);
+
+    List<BookingResponseDto> getDtoFromUserByStatePage(long userId, String state, Boolean ownerOnly,
+                                                       Integer from, Integer size);
+
+    List<Booking> insertAll(List<Booking> bookings);
+}
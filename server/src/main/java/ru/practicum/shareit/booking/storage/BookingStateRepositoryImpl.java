@@ -0,0 +1,307 @@
+package ru.practicum.shareit.booking.storage;
+
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.BooleanType;
+import org.hibernate.type.IntegerType;
+import org.hibernate.type.LocalDateTimeType;
+import org.hibernate.type.LongType;
+import org.hibernate.type.StringType;
+import ru.practicum.shareit.booking.dto.BookingMapper;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.enums.BookingRequestStatus;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.dto.ItemResponseDto;
+import ru.practicum.shareit.user.dto.UserResponseDto;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+// Отдельный запрос на каждую пару (роль, состояние) без OR по параметрам,
+// чтобы планировщик мог использовать индексы bookings_booker_end_idx, bookings_item_status_from_idx, items_owner_idx
+public class BookingStateRepositoryImpl implements BookingStateRepository {
+    private static final String EXCLUSION_VIOLATION = "23P01";
+    // Вещь, ее владелец и арендатор выбираются тем же запросом: без этого на каждую строку шли отдельные select
+    private static final String ENTITY_COLUMNS = "SELECT {b.*}, {i.*}, {o.*}, {u.*} \n";
+    // Для DTO-проекции - только нужные столбцы, сущности не создаются
+    private static final String DTO_COLUMNS = "SELECT b.booking_id, b.date_from, b.date_end, b.status_id, \n"
+            + "            i.item_id, i.owner_user_id, i.item_name, i.description, i.available, i.request_id, \n"
+            + "            u.user_id, u.email, u.user_name \n";
+    private static final String JOINS = "       JOIN items i \n"
+            + "         ON i.item_id = b.item_id  \n"
+            + "       JOIN users u \n"
+            + "         ON u.user_id = b.booker_user_id \n";
+    private static final String FROM = "       FROM bookings b\n" + JOINS;
+    private static final String OWNER_JOIN = "  LEFT JOIN users o \n"
+            + "         ON o.user_id = i.owner_user_id \n";
+    // Ближайшие бронирования одной вещи: поиск по bookings_item_status_end_idx / bookings_item_status_from_idx,
+    // при равных датах порядок задает booking_id
+    private static final String LAST_PREV = ENTITY_COLUMNS + FROM + OWNER_JOIN
+            + "      WHERE b.item_id = :item_id \n"
+            + "        AND b.status_id = 1 \n"
+            + "        AND b.date_from < :now \n"
+            + "      ORDER BY b.date_end DESC, b.booking_id DESC";
+    private static final String FIRST_NEXT = ENTITY_COLUMNS + FROM + OWNER_JOIN
+            + "      WHERE b.item_id = :item_id \n"
+            + "        AND b.status_id = 1 \n"
+            + "        AND b.date_from > :now \n"
+            + "      ORDER BY b.date_from, b.booking_id";
+    // По каждой вещи одно последнее начавшееся (по концу) и одно ближайшее будущее (по началу)
+    // подтвержденное бронирование вместо всей истории вещи
+    private static final String LAST_AND_NEXT = ENTITY_COLUMNS
+            + "       FROM (SELECT booking_id, item_id, booker_user_id, date_from, date_end, status_id, version \n"
+            + "               FROM (SELECT p.*, ROW_NUMBER() OVER (PARTITION BY p.item_id \n"
+            + "                                  ORDER BY p.date_end DESC, p.booking_id DESC) AS rn \n"
+            + "                       FROM bookings p \n"
+            + "                      WHERE p.item_id IN (:item_ids) \n"
+            + "                        AND p.status_id = 1 \n"
+            + "                        AND p.date_from < :now) prev \n"
+            + "              WHERE prev.rn = 1 \n"
+            + "              UNION ALL \n"
+            + "             SELECT booking_id, item_id, booker_user_id, date_from, date_end, status_id, version \n"
+            + "               FROM (SELECT f.*, ROW_NUMBER() OVER (PARTITION BY f.item_id \n"
+            + "                                  ORDER BY f.date_from, f.booking_id) AS rn \n"
+            + "                       FROM bookings f \n"
+            + "                      WHERE f.item_id IN (:item_ids) \n"
+            + "                        AND f.status_id = 1 \n"
+            + "                        AND f.date_from > :now) fut \n"
+            + "              WHERE fut.rn = 1) b \n"
+            + JOINS
+            + OWNER_JOIN;
+    private static final String BY_BOOKER = "      WHERE b.booker_user_id = :user_id \n";
+    // Страница владельца индексом не ограничивается: владелец есть только у вещи, поэтому все его бронирования
+    // собираются через items_owner_idx и bookings_item_end_idx и сортируются до LIMIT. Курсор у владельца
+    // стоит порядка числа его бронирований на любой глубине; у арендатора - LIMIT по bookings_booker_end_idx
+    private static final String BY_OWNER = "      WHERE i.owner_user_id = :user_id \n";
+    private static final String AFTER_CURSOR = "        AND (b.date_end, b.booking_id) < (:cursor_end, :cursor_id) \n";
+    private static final String ORDER = "      ORDER BY b.date_end DESC, b.booking_id DESC";
+    private static final String INSERT = "INSERT INTO bookings (date_from, date_end, item_id, booker_user_id, status_id) "
+            + "VALUES (?, ?, ?, ?, ?)";
+    private static final Map<BookingRequestStatus, String> STATE_FILTERS = new EnumMap<>(BookingRequestStatus.class);
+
+    static {
+        STATE_FILTERS.put(BookingRequestStatus.ALL, "");
+        STATE_FILTERS.put(BookingRequestStatus.CURRENT, "        AND now() BETWEEN b.date_from AND b.date_end \n");
+        STATE_FILTERS.put(BookingRequestStatus.FUTURE, "        AND b.date_from > now() \n");
+        STATE_FILTERS.put(BookingRequestStatus.PAST, "        AND b.date_end < now() \n");
+        STATE_FILTERS.put(BookingRequestStatus.WAITING, "        AND b.status_id = 0 \n");
+        STATE_FILTERS.put(BookingRequestStatus.REJECTED, "        AND b.status_id = 2 \n");
+    }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Booking> getFromUserByState(long userId, String state, Boolean ownerOnly) {
+        return list(query(userId, state, ownerOnly, ""));
+    }
+
+    @Override
+    public List<Booking> getFromUserByStatePage(long userId, String state, Boolean ownerOnly,
+                                                Integer from, Integer size) {
+        return list(query(userId, state, ownerOnly, "")
+                .setFirstResult(from)
+                .setMaxResults(size));
+    }
+
+    @Override
+    public List<Booking> getFromUserByStateAfter(long userId, String state, Boolean ownerOnly,
+                                                 LocalDateTime cursorEnd, long cursorId, Integer size) {
+        return list(query(userId, state, ownerOnly, AFTER_CURSOR)
+                .setParameter("cursor_end", cursorEnd)
+                .setParameter("cursor_id", cursorId)
+                .setMaxResults(size));
+    }
+
+    @Override
+    public Optional<Booking> getLastPrevByItemId(long itemId, LocalDateTime now) {
+        return nearest(LAST_PREV, itemId, now);
+    }
+
+    @Override
+    public Optional<Booking> getFirstNextByItemId(long itemId, LocalDateTime now) {
+        return nearest(FIRST_NEXT, itemId, now);
+    }
+
+    @Override
+    public List<Booking> getLastAndNextByItemIds(Collection<Long> itemIds, LocalDateTime now) {
+        if (itemIds.isEmpty()) {
+            return List.of();
+        }
+        return list(entities(entityManager.createNativeQuery(LAST_AND_NEXT))
+                .setParameter("item_ids", itemIds)
+                .setParameter("now", now));
+    }
+
+    @Override
+    public List<BookingResponseDto> getDtoFromUserByState(long userId, String state, Boolean ownerOnly) {
+        return dtoList(dtoQuery(userId, state, ownerOnly));
+    }
+
+    @Override
+    public List<BookingResponseDto> getDtoFromUserByStatePage(long userId, String state, Boolean ownerOnly,
+                                                              Integer from, Integer size) {
+        return dtoList(dtoQuery(userId, state, ownerOnly)
+                .setFirstResult(from)
+                .setMaxResults(size));
+    }
+
+    // Один JDBC batch вместо insert на каждое бронирование: с IDENTITY Hibernate вставки не пакетирует.
+    // Сгенерированные id проставляются в переданные бронирования, в контекст персистентности они не попадают.
+    // Если EXCLUDE-ограничение отклонило пакет, он откатывается к точке сохранения и записи вставляются
+    // по одной, каждая под своей точкой сохранения. Возвращаются записи, период которых занят
+    @Override
+    public List<Booking> insertAll(List<Booking> bookings) {
+        if (bookings.isEmpty()) {
+            return List.of();
+        }
+        entityManager.flush();
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            Savepoint batch = connection.setSavepoint();
+            try {
+                insert(connection, bookings);
+                connection.releaseSavepoint(batch);
+                return List.of();
+            } catch (SQLException e) {
+                if (!isOverlapViolation(e)) {
+                    throw e;
+                }
+                connection.rollback(batch);
+            }
+            List<Booking> busy = new ArrayList<>();
+            for (Booking booking : bookings) {
+                Savepoint single = connection.setSavepoint();
+                try {
+                    insert(connection, List.of(booking));
+                    connection.releaseSavepoint(single);
+                } catch (SQLException e) {
+                    if (!isOverlapViolation(e)) {
+                        throw e;
+                    }
+                    connection.rollback(single);
+                    booking.setId(null);
+                    busy.add(booking);
+                }
+            }
+            return busy;
+        });
+    }
+
+    private static void insert(Connection connection, List<Booking> bookings) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(INSERT, new String[]{"booking_id"})) {
+            for (Booking booking : bookings) {
+                statement.setTimestamp(1, Timestamp.valueOf(booking.getStart()));
+                statement.setTimestamp(2, Timestamp.valueOf(booking.getEnd()));
+                statement.setLong(3, booking.getItemId());
+                statement.setLong(4, booking.getBooker().getId());
+                statement.setInt(5, booking.getStatus().ordinal());
+                statement.addBatch();
+            }
+            statement.executeBatch();
+            try (ResultSet keys = statement.getGeneratedKeys()) {
+                for (Booking booking : bookings) {
+                    if (!keys.next()) {
+                        throw new SQLException("Нет сгенерированного id для бронирования");
+                    }
+                    booking.setId(keys.getLong(1));
+                }
+            }
+        }
+    }
+
+    // У BatchUpdateException драйвера причина лежит в цепочке getNextException
+    private static boolean isOverlapViolation(SQLException e) {
+        for (SQLException next = e; next != null; next = next.getNextException()) {
+            if (EXCLUSION_VIOLATION.equals(next.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Query query(long userId, String state, Boolean ownerOnly, String cursorFilter) {
+        String sql = ENTITY_COLUMNS + FROM + OWNER_JOIN + where(state, ownerOnly, cursorFilter);
+        return entities(entityManager.createNativeQuery(sql))
+                .setParameter("user_id", userId);
+    }
+
+    private Optional<Booking> nearest(String sql, long itemId, LocalDateTime now) {
+        return list(entities(entityManager.createNativeQuery(sql))
+                .setParameter("item_id", itemId)
+                .setParameter("now", now)
+                .setMaxResults(1))
+                .stream()
+                .findFirst();
+    }
+
+    private static NativeQuery<?> entities(Query query) {
+        return query.unwrap(NativeQuery.class)
+                .addEntity("b", Booking.class)
+                .addJoin("i", "b.item")
+                .addJoin("u", "b.booker")
+                .addJoin("o", "i.owner");
+    }
+
+    private Query dtoQuery(long userId, String state, Boolean ownerOnly) {
+        String sql = DTO_COLUMNS + FROM + where(state, ownerOnly, "");
+        return entityManager.createNativeQuery(sql)
+                .unwrap(NativeQuery.class)
+                .addScalar("booking_id", LongType.INSTANCE)
+                .addScalar("date_from", LocalDateTimeType.INSTANCE)
+                .addScalar("date_end", LocalDateTimeType.INSTANCE)
+                .addScalar("status_id", IntegerType.INSTANCE)
+                .addScalar("item_id", LongType.INSTANCE)
+                .addScalar("owner_user_id", LongType.INSTANCE)
+                .addScalar("item_name", StringType.INSTANCE)
+                .addScalar("description", StringType.INSTANCE)
+                .addScalar("available", BooleanType.INSTANCE)
+                .addScalar("request_id", LongType.INSTANCE)
+                .addScalar("user_id", LongType.INSTANCE)
+                .addScalar("email", StringType.INSTANCE)
+                .addScalar("user_name", StringType.INSTANCE)
+                .setParameter("user_id", userId);
+    }
+
+    private static String where(String state, Boolean ownerOnly, String cursorFilter) {
+        return (Boolean.TRUE.equals(ownerOnly) ? BY_OWNER : BY_BOOKER)
+                + STATE_FILTERS.get(BookingRequestStatus.valueOf(state))
+                + cursorFilter
+                + ORDER;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<BookingResponseDto> dtoList(Query query) {
+        return ((List<Object[]>) query.getResultList()).stream()
+                .map(row -> BookingMapper.toResponseDto(
+                        (Long) row[0], (LocalDateTime) row[1], (LocalDateTime) row[2],
+                        BookingStatus.values()[(Integer) row[3]],
+                        new ItemResponseDto((Long) row[4], (Long) row[5], (String) row[6], (String) row[7],
+                                (Boolean) row[8], (Long) row[9]),
+                        new UserResponseDto((Long) row[10], (String) row[11], (String) row[12])))
+                .collect(Collectors.toList());
+    }
+
+    // Строка результата - бронирование и присоединенные сущности, нужен только первый элемент
+    @SuppressWarnings("unchecked")
+    private static List<Booking> list(Query query) {
+        return ((List<Object[]>) query.getResultList()).stream()
+                .map(row -> (Booking) row[0])
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,66 @@
+package ru.practicum.shareit.config;
+
+import org.modelmapper.ModelMapper;
+import ru.practicum.shareit.booking.dto.BookingMapper;
+import ru.practicum.shareit.booking.dto.BookingRequestDto;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.comment.dto.CommentMapper;
+import ru.practicum.shareit.item.comment.dto.ItemCommentRequestDto;
+import ru.practicum.shareit.item.comment.dto.ItemCommentResponseDto;
+import ru.practicum.shareit.item.comment.model.ItemComment;
+import ru.practicum.shareit.item.dto.ItemMapper;
+import ru.practicum.shareit.item.dto.ItemRequestDto;
+import ru.practicum.shareit.item.dto.ItemResponseDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.dto.RequestItemMapper;
+import ru.practicum.shareit.request.dto.RequestItemRequestDto;
+import ru.practicum.shareit.request.dto.RequestItemResponseDto;
+import ru.practicum.shareit.request.model.RequestItem;
+import ru.practicum.shareit.user.dto.UserMapper;
+import ru.practicum.shareit.user.dto.UserRequestDto;
+import ru.practicum.shareit.user.dto.UserResponseDto;
+import ru.practicum.shareit.user.model.User;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+// Известные пары (источник, DTO) преобразуются написанными вручную мапперами без рефлексии,
+// остальные - обычным ModelMapper
+public class DirectModelMapper extends ModelMapper {
+    private final Map<Class<?>, Map<Class<?>, Function<Object, Object>>> mappers = new HashMap<>();
+
+    public DirectModelMapper() {
+        register(User.class, UserResponseDto.class, UserMapper::toResponseDto);
+        register(UserRequestDto.class, User.class, UserMapper::toUser);
+        register(Item.class, ItemResponseDto.class, ItemMapper::toResponseDto);
+        register(ItemRequestDto.class, Item.class, ItemMapper::toItem);
+        register(Booking.class, BookingResponseDto.class, BookingMapper::toResponseDto);
+        register(BookingRequestDto.class, Booking.class, BookingMapper::toBooking);
+        register(ItemComment.class, ItemCommentResponseDto.class, CommentMapper::toResponseDto);
+        register(ItemCommentRequestDto.class, ItemComment.class, CommentMapper::toComment);
+        register(RequestItem.class, RequestItemResponseDto.class, RequestItemMapper::toResponseDto);
+        register(RequestItemRequestDto.class, RequestItem.class, RequestItemMapper::toRequestItem);
+    }
+
+    @Override
+    public <D> D map(Object source, Class<D> destinationType) {
+        if (Objects.nonNull(source)) {
+            Map<Class<?>, Function<Object, Object>> bySource = mappers.get(source.getClass());
+            if (Objects.nonNull(bySource)) {
+                Function<Object, Object> mapper = bySource.get(destinationType);
+                if (Objects.nonNull(mapper)) {
+                    return destinationType.cast(mapper.apply(source));
+                }
+            }
+        }
+        return super.map(source, destinationType);
+    }
+
+    private <S, D> void register(Class<S> sourceType, Class<D> destinationType, Function<S, D> mapper) {
+        mappers.computeIfAbsent(sourceType, type -> new HashMap<>())
+                .put(destinationType, source -> mapper.apply(sourceType.cast(source)));
+    }
+}
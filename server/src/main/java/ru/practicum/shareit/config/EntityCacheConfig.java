@@ -0,0 +1,66 @@
+package ru.practicum.shareit.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Второй уровень кэша Hibernate для User и Item (Caffeine через JCache) с ограничением размера и времени жизни.
+// Массовые UPDATE сбрасывают регион своей таблицы: JPQL - сам Hibernate, native - по подсказке NATIVE_SPACES.
+// Метрики - cache.gets/cache.puts/cache.removals с тегом cache=users|items в /actuator/metrics
+@Configuration
+@ConditionalOnProperty(name = "shareit.cache.enabled", havingValue = "true", matchIfMissing = true)
+public class EntityCacheConfig {
+    public static final String USERS = "users";
+    public static final String ITEMS = "items";
+
+    @Value("${shareit.cache.maximum-size:10000}")
+    private long maximumSize;
+
+    @Value("${shareit.cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    // Свой менеджер на каждый контекст: контексты в тестах не должны видеть кэш друг друга
+    @Bean(destroyMethod = "close")
+    public CacheManager entityCacheManager() {
+        CacheManager manager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("shareit-" + UUID.randomUUID()), getClass().getClassLoader());
+        for (String region : List.of(USERS, ITEMS)) {
+            CaffeineConfiguration<Object, Object> config = new CaffeineConfiguration<>();
+            config.setMaximumSize(OptionalLong.of(maximumSize));
+            config.setExpireAfterWrite(OptionalLong.of(TimeUnit.SECONDS.toNanos(ttlSeconds)));
+            config.setStatisticsEnabled(true);
+            manager.createCache(region, config);
+        }
+        return manager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer entityCacheProperties(CacheManager entityCacheManager) {
+        return properties -> {
+            properties.put("hibernate.cache.use_second_level_cache", true);
+            properties.put("hibernate.cache.region.factory_class", "jcache");
+            properties.put("hibernate.javax.cache.cache_manager", entityCacheManager);
+            properties.put("hibernate.javax.cache.missing_cache_strategy", "fail");
+        };
+    }
+
+    @Bean
+    public MeterBinder entityCacheMetrics(CacheManager entityCacheManager) {
+        return registry -> List.of(USERS, ITEMS)
+                .forEach(region -> JCacheMetrics.monitor(registry, entityCacheManager.getCache(region)));
+    }
+}
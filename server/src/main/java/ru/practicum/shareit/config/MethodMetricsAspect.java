@@ -0,0 +1,148 @@
+package ru.practicum.shareit.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Время и число строк для методов сервисов и репозиториев Spring Data.
+// shareit.method - таймер с тегами layer, class, method, exception (none или простое имя исключения),
+// по нему же считаются NoContentException/BadRequestException. shareit.method.rows - размер возвращенной
+// коллекции, Optional или страницы. Гистограммы включаются в application.properties, смотреть в /actuator/prometheus.
+// Самый высокий приоритет: время сервиса включает и коммит транзакции
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.metrics.enabled", havingValue = "true", matchIfMissing = true)
+public class MethodMetricsAspect {
+    public static final String TIMER = "shareit.method";
+    public static final String ROWS = "shareit.method.rows";
+
+    private final MeterRegistry registry;
+    // Метры по классу цели и методу: методы CrudRepository общие у всех репозиториев, а тег class у каждого свой
+    private final Map<Class<?>, Map<Method, Meters>> meters = new ConcurrentHashMap<>();
+
+    @Around("this(ru.practicum.shareit.booking.service.BookingService)"
+            + " || this(ru.practicum.shareit.item.service.ItemService)"
+            + " || this(ru.practicum.shareit.request.service.RequestService)"
+            + " || this(ru.practicum.shareit.user.service.UserService)")
+    public Object service(ProceedingJoinPoint point) throws Throwable {
+        return measure(point, "service");
+    }
+
+    @Around("this(org.springframework.data.repository.Repository)")
+    public Object repository(ProceedingJoinPoint point) throws Throwable {
+        return measure(point, "repository");
+    }
+
+    private Object measure(ProceedingJoinPoint point, String layer) throws Throwable {
+        Meters methodMeters = meters(point, layer);
+        Timer.Sample sample = Timer.start(registry);
+        Object result;
+        try {
+            result = point.proceed();
+        } catch (Throwable e) {
+            // Ошибки редки: таймер с именем исключения ищется в реестре только здесь
+            sample.stop(methodMeters.timer(e.getClass().getSimpleName()));
+            throw e;
+        }
+        sample.stop(methodMeters.success);
+        Integer rows = rows(result);
+        if (rows != null) {
+            methodMeters.rows().record(rows);
+        }
+        return result;
+    }
+
+    private Meters meters(ProceedingJoinPoint point, String layer) {
+        Class<?> type = point.getTarget().getClass();
+        Map<Method, Meters> byMethod = meters.get(type);
+        if (byMethod == null) {
+            byMethod = meters.computeIfAbsent(type, key -> new ConcurrentHashMap<>());
+        }
+        Method method = ((MethodSignature) point.getSignature()).getMethod();
+        Meters methodMeters = byMethod.get(method);
+        if (methodMeters == null) {
+            methodMeters = byMethod.computeIfAbsent(method,
+                    key -> new Meters(registry, layer, className(type), key.getName()));
+        }
+        return methodMeters;
+    }
+
+    // У репозитория класс - JDK-прокси, в тег идет его интерфейс
+    private static String className(Class<?> type) {
+        if (Proxy.isProxyClass(type)) {
+            for (Class<?> candidate : type.getInterfaces()) {
+                if (Repository.class.isAssignableFrom(candidate)) {
+                    return candidate.getSimpleName();
+                }
+            }
+        }
+        return ClassUtils.getUserClass(type).getSimpleName();
+    }
+
+    private static Integer rows(Object result) {
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        } else if (result instanceof Slice) {
+            return ((Slice<?>) result).getNumberOfElements();
+        } else if (result instanceof Optional) {
+            return ((Optional<?>) result).isPresent() ? 1 : 0;
+        }
+        return null;
+    }
+
+    private static class Meters {
+        private final MeterRegistry registry;
+        private final String layer;
+        private final String className;
+        private final String method;
+        private final Timer success;
+        // Регистрируется при первом результате-коллекции, чтобы у прочих методов не было пустых метров
+        private volatile DistributionSummary rows;
+
+        Meters(MeterRegistry registry, String layer, String className, String method) {
+            this.registry = registry;
+            this.layer = layer;
+            this.className = className;
+            this.method = method;
+            this.success = timer("none");
+        }
+
+        Timer timer(String exception) {
+            return Timer.builder(TIMER)
+                    .tags("layer", layer, "class", className, "method", method, "exception", exception)
+                    .register(registry);
+        }
+
+        DistributionSummary rows() {
+            DistributionSummary summary = rows;
+            if (summary == null) {
+                summary = DistributionSummary.builder(ROWS)
+                        .tags("layer", layer, "class", className, "method", method)
+                        .register(registry);
+                rows = summary;
+            }
+            return summary;
+        }
+    }
+}
@@ -4,12 +4,17 @@ import lombok.AllArgsConstructor;
 import org.modelmapper.Converter;
 import org.modelmapper.ModelMapper;
 import org.modelmapper.spi.MappingContext;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.item.comment.dto.ItemCommentResponseDto;
 import ru.practicum.shareit.item.comment.model.ItemComment;
+import ru.practicum.shareit.item.dto.ItemResponseDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.request.model.RequestItem;
+import ru.practicum.shareit.user.dto.UserResponseDto;
 import ru.practicum.shareit.user.model.User;
 
 import java.time.LocalDateTime;
@@ -18,9 +23,10 @@ import java.time.format.DateTimeFormatter;
 @Configuration
 @AllArgsConstructor
 public class ModelMapperConfig {
+    // direct - написанные вручную мапперы для горячих путей, reflective - только ModelMapper
     @Bean
-    public ModelMapper modelMapper() {
-        ModelMapper mapper = new ModelMapper();
+    public ModelMapper modelMapper(@Value("${shareit.mapper.mode:direct}") String mode) {
+        ModelMapper mapper = "reflective".equalsIgnoreCase(mode) ? new ModelMapper() : new DirectModelMapper();
         // mapper.getConfiguration().setSkipNullEnabled(true);
         mapper.addConverter(new Converter<User, Long>() {
             public Long convert(MappingContext<User, Long> context) {
@@ -57,6 +63,25 @@ public class ModelMapperConfig {
                         .build();
             }
         });
+
+        // Неявное сопоставление неоднозначно: item.id совпадает с getItemId() и item.requestId
+        mapper.addConverter(new Converter<Booking, BookingResponseDto>() {
+            public BookingResponseDto convert(MappingContext<Booking, BookingResponseDto> context) {
+                Booking src = context.getSource();
+                if (src == null) {
+                    return null;
+                }
+                DateTimeFormatter dtFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+                return BookingResponseDto.builder()
+                        .id(src.getId())
+                        .start(src.getStart() == null ? null : dtFormatter.format(src.getStart()))
+                        .end(src.getEnd() == null ? null : dtFormatter.format(src.getEnd()))
+                        .item(src.getItem() == null ? null : mapper.map(src.getItem(), ItemResponseDto.class))
+                        .booker(src.getBooker() == null ? null : mapper.map(src.getBooker(), UserResponseDto.class))
+                        .status(src.getStatus())
+                        .build();
+            }
+        });
 /*
         mapper.addMappings(new PropertyMap<ItemComment, ItemCommentResponseDto>() {
             @Override
@@ -0,0 +1,79 @@
+package ru.practicum.shareit.invalidation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Рассылает события об изменениях подписчикам SSE. Отправка идет в одном своем потоке:
+// запрос на запись не ждет медленного подписчика, а порядок событий сохраняется.
+// Heartbeat нужен подписчику, чтобы отличить тишину от оборванного соединения.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.invalidation.enabled", havingValue = "true", matchIfMissing = true)
+public class InvalidationBroadcaster {
+    static final String CONNECTED = "CONNECTED";
+    static final String HEARTBEAT = "HEARTBEAT";
+
+    private final Set<SseEmitter> emitters = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService sender = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "invalidation-sender");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public InvalidationBroadcaster(@Value("${shareit.invalidation.heartbeat-ms:15000}") long heartbeatMs) {
+        sender.scheduleAtFixedRate(() -> broadcast(SseEmitter.event().name(HEARTBEAT).data("")),
+                heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+    }
+
+    public SseEmitter subscribe() {
+        // 0 - без таймаута: соединение живет, пока подписчик его не закроет
+        SseEmitter emitter = new SseEmitter(0L);
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(e -> emitters.remove(emitter));
+        emitters.add(emitter);
+        sender.execute(() -> send(emitter, SseEmitter.event().name(CONNECTED).data("")));
+        log.info("Подписчик на события изменений подключен, всего {}", emitters.size());
+        return emitter;
+    }
+
+    // Вне транзакции событие отправляется сразу, в транзакции - только после коммита
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onInvalidation(InvalidationEvent event) {
+        sender.execute(() -> broadcast(SseEmitter.event()
+                .name(event.getResource().name())
+                .data(String.valueOf(event.getId()))));
+    }
+
+    private void broadcast(SseEmitter.SseEventBuilder event) {
+        emitters.forEach(emitter -> send(emitter, event));
+    }
+
+    private void send(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Подписчик на события изменений отключился: {}", e.getMessage());
+            emitters.remove(emitter);
+            emitter.completeWithError(e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+        emitters.forEach(SseEmitter::complete);
+    }
+}
@@ -0,0 +1,20 @@
+package ru.practicum.shareit.invalidation;
+
+import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@AllArgsConstructor
+@ConditionalOnProperty(name = "shareit.invalidation.enabled", havingValue = "true", matchIfMissing = true)
+public class InvalidationController {
+    private final InvalidationBroadcaster broadcaster;
+
+    @GetMapping(value = "/invalidations", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe() {
+        return broadcaster.subscribe();
+    }
+}
@@ -0,0 +1,28 @@
+package ru.practicum.shareit.invalidation;
+
+import lombok.Value;
+
+// Событие об изменении данных: после коммита рассылается подписчикам /invalidations (шлюзам с кэшем чтения)
+@Value
+public class InvalidationEvent {
+    Resource resource;
+    Long id;
+
+    public enum Resource {
+        USER,
+        ITEM,
+        REQUEST
+    }
+
+    public static InvalidationEvent user(Long id) {
+        return new InvalidationEvent(Resource.USER, id);
+    }
+
+    public static InvalidationEvent item(Long id) {
+        return new InvalidationEvent(Resource.ITEM, id);
+    }
+
+    public static InvalidationEvent request(Long id) {
+        return new InvalidationEvent(Resource.REQUEST, id);
+    }
+}
@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.practicum.shareit.dtoValidateGroups.GroupCreate;
 import ru.practicum.shareit.error.exceptions.BadRequestException;
 import ru.practicum.shareit.error.exceptions.ConflictException;
@@ -41,11 +42,18 @@ public class ItemController {
         return itemsService.getAllUserItems(userId, from, size);
     }
 
+    // If-None-Match с текущим ETag - 304 без сборки DTO. ETag читается до тела: если вещь изменится между
+    // ними, клиент получит новое тело со старым ETag и на следующем запросе просто скачает его еще раз
     @GetMapping(value = "/{id}")
     public ItemResponseDto getItem(
             @RequestHeader(OWNER_ID_HOLDER) long userId,
-            @PathVariable long id) throws NoContentException {
+            @PathVariable long id,
+            WebRequest request) throws NoContentException {
         log.info("Got Item request");
+        Optional<String> eTag = itemsService.getItemETag(id, userId);
+        if (eTag.isPresent() && request.checkNotModified(eTag.get())) {
+            return null;
+        }
         return itemsService.getItemDtoById(id, userId);
     }
 
@@ -94,7 +102,7 @@ public class ItemController {
                                                 @Validated @RequestBody ItemCommentRequestDto inComment,
                                                 @PathVariable Long itemId)
             throws NoContentException, BadRequestException {
-        log.info("Got add post request to item {} --> {} ", itemId, inComment.toString());
+        log.info("Got add post request to item {} --> {} ", itemId, inComment);
         return itemsService.addComment(userId, inComment, itemId);
     }
 }
@@ -0,0 +1,23 @@
+package ru.practicum.shareit.item.comment.dto;
+
+import ru.practicum.shareit.item.comment.model.ItemComment;
+
+public final class CommentMapper {
+    private CommentMapper() {
+    }
+
+    public static ItemCommentResponseDto toResponseDto(ItemComment comment) {
+        return ItemCommentResponseDto.builder()
+                .id(comment.getId())
+                .authorName(comment.getAuthor().getName())
+                .created(comment.getCreated())
+                .text(comment.getText())
+                .build();
+    }
+
+    public static ItemComment toComment(ItemCommentRequestDto commentRequestDto) {
+        ItemComment comment = new ItemComment();
+        comment.setText(commentRequestDto.getText());
+        return comment;
+    }
+}
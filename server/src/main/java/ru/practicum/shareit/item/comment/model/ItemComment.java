@@ -3,6 +3,7 @@ package ru.practicum.shareit.item.comment.model;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.DynamicUpdate;
@@ -39,5 +40,9 @@ public class ItemComment {
     @Column(name = "created")
     @CreationTimestamp
     private LocalDateTime created;
+    // Комментарии не меняются; колонка для будущих правок, входит в ETag вещи
+    @Column(name = "version", insertable = false, updatable = false, columnDefinition = "bigint default 0 not null")
+    @EqualsAndHashCode.Exclude
+    private Long version;
 
 }
\ No newline at end of file
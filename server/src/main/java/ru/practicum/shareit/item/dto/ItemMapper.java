@@ -0,0 +1,52 @@
+package ru.practicum.shareit.item.dto;
+
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingShortResponseDto;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.ArrayList;
+import java.util.Objects;
+
+public final class ItemMapper {
+    private ItemMapper() {
+    }
+
+    public static ItemResponseDto toResponseDto(Item item) {
+        return ItemResponseDto.builder()
+                .id(item.getId())
+                .owner(Objects.isNull(item.getOwner()) ? null : item.getOwner().getId())
+                .name(item.getName())
+                .description(item.getDescription())
+                .available(item.getAvailable())
+                .requestId(item.getRequestId())
+                .lastBooking(toShortDto(item.getLastBooking()))
+                .nextBooking(toShortDto(item.getNextBooking()))
+                .comments(Objects.isNull(item.getComments()) ? null : new ArrayList<>(item.getComments()))
+                .build();
+    }
+
+    public static Item toItem(ItemRequestDto itemRequestDto) {
+        Item item = new Item();
+        item.setId(itemRequestDto.getId());
+        item.setName(itemRequestDto.getName());
+        item.setDescription(itemRequestDto.getDescription());
+        item.setAvailable(itemRequestDto.getAvailable());
+        item.setRequestId(itemRequestDto.getRequestId());
+        return item;
+    }
+
+    public static BookingShortResponseDto toShortDto(BookingResponseDto booking) {
+        if (Objects.isNull(booking)) {
+            return null;
+        }
+        return BookingShortResponseDto.builder()
+                .id(booking.getId())
+                .start(booking.getStart())
+                .end(booking.getEnd())
+                .item(booking.getItem())
+                .booker(booking.getBooker())
+                .status(booking.getStatus())
+                .bookerId(Objects.isNull(booking.getBooker()) ? null : booking.getBooker().getId())
+                .build();
+    }
+}
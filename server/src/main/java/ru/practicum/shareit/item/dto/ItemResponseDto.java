@@ -23,4 +23,14 @@ public class ItemResponseDto {
     private BookingShortResponseDto lastBooking;
     private BookingShortResponseDto nextBooking;
     private List<ItemCommentResponseDto> comments;
+
+    // Для проекций запросов: только поля самой вещи
+    public ItemResponseDto(Long id, Long owner, String name, String description, Boolean available, Long requestId) {
+        this.id = id;
+        this.owner = owner;
+        this.name = name;
+        this.description = description;
+        this.available = available;
+        this.requestId = requestId;
+    }
 }
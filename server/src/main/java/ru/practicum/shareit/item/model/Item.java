@@ -3,9 +3,13 @@ package ru.practicum.shareit.item.model;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.DynamicUpdate;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.config.EntityCacheConfig;
 import ru.practicum.shareit.item.comment.dto.ItemCommentResponseDto;
 import ru.practicum.shareit.user.model.User;
 
@@ -17,6 +21,7 @@ import java.util.List;
 @Entity
 @Table(name = "items")
 @DynamicUpdate
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = EntityCacheConfig.ITEMS)
 @AllArgsConstructor
 @NoArgsConstructor
 public class Item {
@@ -33,6 +38,10 @@ public class Item {
     private Boolean available;
     @Column(name = "request_id")
     private Long requestId;
+    // +1 в partialUpdate, см. ItemRepository.findVersionTag
+    @Column(name = "version", insertable = false, updatable = false, columnDefinition = "bigint default 0 not null")
+    @EqualsAndHashCode.Exclude
+    private Long version;
     @Transient
     private BookingResponseDto lastBooking;
     @Transient
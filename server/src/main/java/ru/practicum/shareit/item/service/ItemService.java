@@ -11,6 +11,7 @@ import ru.practicum.shareit.item.dto.ItemResponseDto;
 import ru.practicum.shareit.item.model.Item;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,10 +23,16 @@ public interface ItemService {
 
     ItemResponseDto getItemDtoById(Long id, Long userId) throws NoContentException;
 
+    Optional<String> getItemETag(Long id, Long userId);
+
     ArrayList<Item> getAllByRequestId(Long requestId);
 
     ArrayList<Item> getAllByRequestIdNotNull();
 
+    ArrayList<Item> getAllByRequestIdIn(Collection<Long> requestIds);
+
+    List<Item> getItemsByIds(Collection<Long> ids);
+
     Item setBookingsDto(Item item, List<Booking> bookings);
 
     ItemResponseDto createItem(Long userId, ItemRequestDto item) throws BadRequestException, ConflictException, NoContentException;
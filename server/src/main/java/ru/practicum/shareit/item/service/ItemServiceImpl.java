@@ -3,56 +3,81 @@ package ru.practicum.shareit.item.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.DigestUtils;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingShortResponseDto;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.storage.BookingIntervalIndex;
 import ru.practicum.shareit.booking.storage.BookingRepository;
 import ru.practicum.shareit.error.exceptions.BadRequestException;
 import ru.practicum.shareit.error.exceptions.NoContentException;
+import ru.practicum.shareit.invalidation.InvalidationEvent;
 import ru.practicum.shareit.item.comment.dto.ItemCommentRequestDto;
 import ru.practicum.shareit.item.comment.dto.ItemCommentResponseDto;
 import ru.practicum.shareit.item.comment.model.ItemComment;
 import ru.practicum.shareit.item.comment.storage.CommentRepository;
+import ru.practicum.shareit.item.dto.ItemMapper;
 import ru.practicum.shareit.item.dto.ItemRequestDto;
 import ru.practicum.shareit.item.dto.ItemResponseDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.item.storage.ItemSearchIndex;
 import ru.practicum.shareit.request.model.RequestItem;
 import ru.practicum.shareit.request.storage.RequestRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
 
+import javax.persistence.EntityManagerFactory;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
 import static java.util.stream.Collectors.*;
-import static ru.practicum.shareit.booking.enums.BookingStatus.APPROVED;
 
 @Slf4j
 @Repository
 @RequiredArgsConstructor
-@Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.SERIALIZABLE)
+@Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.READ_COMMITTED)
 public class ItemServiceImpl implements ItemService {
     private final ItemRepository itemRepository;
     private final UserService userService;
     private final CommentRepository commentsRepository;
     private final BookingRepository bookingRepository;
+    private final BookingIntervalIndex bookingIndex;
+    private final ItemSearchIndex itemSearchIndex;
     private final RequestRepository requestRepository;
     private final ModelMapper modelMapper;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // like - подстрока (на Postgres ускоряется триграммными индексами), fulltext - tsvector по словам,
+    // index - подстрока по инвертированному индексу в памяти
+    @Value("${shareit.item.search.mode:like}")
+    private String searchMode;
+
+    // projection - списки читаются сразу в DTO, entity - через сущности
+    @Value("${shareit.read.mode:entity}")
+    private String readMode;
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public List<ItemResponseDto> getAllUserItems(Long ownerId, Optional<Integer> from, Optional<Integer> size)
             throws NoContentException {
+        if (isProjection()) {
+            return getAllUserItemDtos(ownerId, from, size);
+        }
         ArrayList<Item> itemsList;
         if (from.isPresent() && size.isPresent()) {
-            PageRequest page = PageRequest.of(from.get(), size.get(), Sort.by("created").descending());
+            PageRequest page = PageRequest.of(from.get(), size.get(), Sort.by("id"));
             itemsList = itemRepository.findAllByOwner(userService.getUserById(ownerId), page);
         } else {
             itemsList = itemRepository.findAllByOwnerOrderByIdAsc(userService.getUserById(ownerId));
@@ -66,16 +91,18 @@ public class ItemServiceImpl implements ItemService {
                 .findAllByItemIdIn(idList)
                 .stream()
                 .filter(Objects::nonNull)
-                .map(c -> modelMapper.map(c, ItemCommentResponseDto.class))
-                .collect(groupingBy(ItemCommentResponseDto::getItemId));
+                .collect(groupingBy(c -> c.getItem().getId(),
+                        mapping(c -> modelMapper.map(c, ItemCommentResponseDto.class), toList())));
 
         Map<Long, List<Booking>> bookings = bookingRepository
-                .findAllByItemInAndStatusOrderByStartAsc(itemsList, APPROVED)
+                .getLastAndNextByItemIds(idList, LocalDateTime.now())
                 .stream()
                 .collect(groupingBy(Booking::getItemId, toList()));
 
-        bookings.entrySet().stream()
-                .forEach(e -> log.debug(" All bookings list ---> {}", Arrays.toString(e.getValue().toArray())));
+        // Без проверки уровня массивы для сообщения собирались бы и при выключенном DEBUG
+        if (log.isDebugEnabled()) {
+            bookings.forEach((itemId, list) -> log.debug(" All bookings list ---> {}", list));
+        }
 
         return itemsList
                 .stream()
@@ -86,8 +113,47 @@ public class ItemServiceImpl implements ItemService {
 
     }
 
+    private List<ItemResponseDto> getAllUserItemDtos(Long ownerId, Optional<Integer> from, Optional<Integer> size)
+            throws NoContentException {
+        userService.getUserById(ownerId);
+        List<ItemResponseDto> items;
+        if (from.isPresent() && size.isPresent()) {
+            PageRequest page = PageRequest.of(from.get(), size.get(), Sort.by("id"));
+            items = itemRepository.findResponseDtoByOwnerIdPage(ownerId, page);
+        } else {
+            items = itemRepository.findResponseDtoByOwnerId(ownerId);
+        }
+
+        List<Long> idList = items.stream()
+                .map(ItemResponseDto::getId)
+                .collect(Collectors.toList());
+
+        Map<Long, List<ItemCommentResponseDto>> comments = commentsRepository
+                .findAllByItemIdIn(idList)
+                .stream()
+                .filter(Objects::nonNull)
+                .collect(groupingBy(c -> c.getItem().getId(),
+                        mapping(c -> modelMapper.map(c, ItemCommentResponseDto.class), toList())));
+
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, List<Booking>> bookings = bookingRepository
+                .getLastAndNextByItemIds(idList, now)
+                .stream()
+                .collect(groupingBy(Booking::getItemId, toList()));
+
+        for (ItemResponseDto item : items) {
+            item.setComments(comments.get(item.getId()));
+            List<Booking> itemBookings = bookings.get(item.getId());
+            if (Objects.nonNull(itemBookings)) {
+                item.setLastBooking(toShortDto(lastBooking(itemBookings, now)));
+                item.setNextBooking(toShortDto(nextBooking(itemBookings, now)));
+            }
+        }
+        return items;
+    }
+
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public Item getItemById(Long id, Long userId) throws NoContentException {
         Optional<Item> items = itemRepository.findById(id);
         if (items.isEmpty()) {
@@ -99,51 +165,71 @@ public class ItemServiceImpl implements ItemService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ItemResponseDto getItemDtoById(Long id, Long userId) throws NoContentException {
         Item ret = getItemById(id, userId);
         boolean isOwner = Objects.equals(ret.getOwner().getId(), userId);
         List<ItemCommentResponseDto> comments = getAllItemComments(id);
         ret.setComments(comments);
         if (isOwner) {
-            List<Booking> bookings = bookingRepository
-                    .findAllByItemAndStatusOrderByEndAsc(ret, APPROVED);
-            ret = setBookingsDto(ret, bookings);
-            log.info("----> add bookings {} ", ret.toString());
+            LocalDateTime now = LocalDateTime.now();
+            ret.setLastBooking(bookingRepository.getLastPrevByItemId(id, now)
+                    .map(b -> modelMapper.map(b, BookingResponseDto.class))
+                    .orElse(null));
+            ret.setNextBooking(bookingRepository.getFirstNextByItemId(id, now)
+                    .map(b -> modelMapper.map(b, BookingResponseDto.class))
+                    .orElse(null));
+            log.debug("----> add bookings {} ", ret);
         }
         return modelMapper.map(ret, ItemResponseDto.class);
     }
 
+    // Один запрос по версиям строк вместо сборки DTO; пусто, если вещи нет
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<String> getItemETag(Long id, Long userId) {
+        return itemRepository.findVersionTag(id, userId, LocalDateTime.now())
+                .map(tag -> DigestUtils.md5DigestAsHex(tag.getBytes(StandardCharsets.UTF_8)));
+    }
+
     @Override
+    @Transactional(readOnly = true)
     public ArrayList<Item> getAllByRequestId(Long requestId) {
         return itemRepository.findAllByRequestId(requestId);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ArrayList<Item> getAllByRequestIdNotNull() {
         return itemRepository.findAllByRequestIdNotNull();
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
+    public ArrayList<Item> getAllByRequestIdIn(Collection<Long> requestIds) {
+        return itemRepository.findAllByRequestIdIn(requestIds);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Item> getItemsByIds(Collection<Long> ids) {
+        return ids.isEmpty() ? List.of() : itemRepository.findAllByIdIn(ids);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Item setBookingsDto(Item item, List<Booking> bookings) {
-        log.info(" setBookingsDto ---> ComeIn ");
+        log.debug(" setBookingsDto ---> ComeIn ");
         if (Objects.isNull(bookings)) return item;
         LocalDateTime now = LocalDateTime.now();
 
-        List<Booking> filteredBefore = bookings.stream().filter(c -> c.getStart().isBefore(now))
-                .collect(toCollection(ArrayList::new));
-        List<Booking> filterdAfter = bookings.stream().filter(c -> c.getStart().isAfter(now))
-                .collect(toCollection(ArrayList::new));
-
-        bookings.stream().forEach(e -> log.info(" DatesList ---> {} {} {}",
-                e.getStart(), now, e.getStart().isAfter(now)));
+        if (log.isDebugEnabled()) {
+            bookings.forEach(e -> log.debug(" DatesList ---> {} {} {}",
+                    e.getStart(), now, e.getStart().isAfter(now)));
+        }
 
-        Booking lastBooking = filteredBefore.stream()
-                .max(Comparator.comparing(Booking::getEnd))
-                .orElse(null);
-        Booking nextBooking = filterdAfter.stream()
-                .min(Comparator.comparing(Booking::getStart))
-                .orElse(null);
+        Booking lastBooking = lastBooking(bookings, now);
+        Booking nextBooking = nextBooking(bookings, now);
 
         if (Objects.nonNull(lastBooking))
             item.setLastBooking(modelMapper.map(lastBooking, BookingResponseDto.class));
@@ -152,6 +238,30 @@ public class ItemServiceImpl implements ItemService {
         return item;
     }
 
+    private static Booking lastBooking(List<Booking> bookings, LocalDateTime now) {
+        return bookings.stream()
+                .filter(c -> c.getStart().isBefore(now))
+                .max(Comparator.comparing(Booking::getEnd))
+                .orElse(null);
+    }
+
+    private static Booking nextBooking(List<Booking> bookings, LocalDateTime now) {
+        return bookings.stream()
+                .filter(c -> c.getStart().isAfter(now))
+                .min(Comparator.comparing(Booking::getStart))
+                .orElse(null);
+    }
+
+    private BookingShortResponseDto toShortDto(Booking booking) {
+        return Objects.isNull(booking)
+                ? null
+                : ItemMapper.toShortDto(modelMapper.map(booking, BookingResponseDto.class));
+    }
+
+    private boolean isProjection() {
+        return "projection".equalsIgnoreCase(readMode);
+    }
+
     @Override
     @Transactional
     public ItemResponseDto createItem(Long userId, ItemRequestDto itemRequestDto)
@@ -159,7 +269,7 @@ public class ItemServiceImpl implements ItemService {
         if (Objects.nonNull(itemRequestDto)) {
             User user = userService.getUserById(userId);
             if (Objects.nonNull(user)) {
-                log.info(" Запрос на создание вещи: {}", itemRequestDto.toString());
+                log.info(" Запрос на создание вещи: {}", itemRequestDto);
                 Item item = modelMapper.map(itemRequestDto, Item.class);
                 item.setOwner(user);
                 if (Objects.nonNull(itemRequestDto.getRequestId())) {
@@ -169,7 +279,10 @@ public class ItemServiceImpl implements ItemService {
                     log.info(msg);
                     item.setRequestId(requestId);
                 }
-                return modelMapper.map(itemRepository.save(item), ItemResponseDto.class);
+                Item saved = itemRepository.save(item);
+                itemSearchIndex.put(saved);
+                eventPublisher.publishEvent(InvalidationEvent.item(saved.getId()));
+                return modelMapper.map(saved, ItemResponseDto.class);
             }
             String msg = String.format("Нет пользователя с 'id' %s.", userId);
             log.info(msg);
@@ -194,7 +307,12 @@ public class ItemServiceImpl implements ItemService {
                     userID);
             if (updaterRows > 0) {
                 log.info("Операция выполнена уcпешно");
-                return modelMapper.map(itemRepository.findById(itemId).get(), ItemResponseDto.class);
+                // Регион кэша Hibernate сбрасывает только при завершении транзакции, до этого там старая версия
+                entityManagerFactory.getCache().evict(Item.class, itemId);
+                Item updated = itemRepository.findById(itemId).get();
+                itemSearchIndex.put(updated);
+                eventPublisher.publishEvent(InvalidationEvent.item(itemId));
+                return modelMapper.map(updated, ItemResponseDto.class);
             } else {
                 String msg = String
                         .format("Нет вещи с 'id' %s или вещь не принадлежит пользователю. Обновление не возможно.",
@@ -212,19 +330,33 @@ public class ItemServiceImpl implements ItemService {
     @Transactional
     public void delete(Long userid, Long id) throws BadRequestException {
         itemRepository.deleteAllById(Collections.singleton(id));
+        bookingIndex.removeItem(id);
+        itemSearchIndex.remove(id);
+        eventPublisher.publishEvent(InvalidationEvent.item(id));
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public List<ItemResponseDto> searchItemByName(
             Long userId, String text,
             Optional<Integer> from,
             Optional<Integer> size
     ) {
-        List<Item> itemList = new ArrayList<>();
-        if (!text.isEmpty() && (from.isEmpty() || size.isEmpty())) {
+        if (isProjection() && !text.isEmpty() && !"fulltext".equalsIgnoreCase(searchMode)) {
+            return searchItemDtoByName(text, from, size);
+        }
+        List<Item> itemList;
+        if (text.isEmpty()) {
+            itemList = new ArrayList<>();
+        } else if (itemSearchIndex.isWarm()) {
+            itemList = searchInIndex(text, from, size);
+        } else if ("fulltext".equalsIgnoreCase(searchMode)) {
+            itemList = from.isPresent() && size.isPresent()
+                    ? itemRepository.findUserItemFullTextPage(text, from.get(), size.get())
+                    : itemRepository.findUserItemFullText(text);
+        } else if (from.isEmpty() || size.isEmpty()) {
             itemList = itemRepository.findUserItemLike(text, text);
-        } else if (!text.isEmpty() && from.isPresent() && size.isPresent()) {
+        } else {
             itemList = itemRepository.findUserItemLikePage(text, text, from.get(), size.get());
         }
 
@@ -233,6 +365,31 @@ public class ItemServiceImpl implements ItemService {
                 .collect(Collectors.toList());
     }
 
+    // Полнотекстовый поиск остается на сущностях: запросы только для Postgres
+    private List<ItemResponseDto> searchItemDtoByName(String text, Optional<Integer> from, Optional<Integer> size) {
+        if (itemSearchIndex.isWarm()) {
+            return itemRepository.findResponseDtoByIdIn(pageOf(itemSearchIndex.search(text), from, size));
+        }
+        return from.isPresent() && size.isPresent()
+                ? itemRepository.findUserItemLikeDtoPage(text, from.get(), size.get())
+                : itemRepository.findUserItemLikeDto(text);
+    }
+
+    private List<Item> searchInIndex(String text, Optional<Integer> from, Optional<Integer> size) {
+        List<Long> ids = pageOf(itemSearchIndex.search(text), from, size);
+        return itemRepository.findAllById(ids).stream()
+                .sorted(Comparator.comparing(Item::getId))
+                .collect(Collectors.toList());
+    }
+
+    private static List<Long> pageOf(List<Long> ids, Optional<Integer> from, Optional<Integer> size) {
+        if (from.isEmpty() || size.isEmpty()) {
+            return ids;
+        }
+        int first = Math.min(from.get(), ids.size());
+        return ids.subList(first, Math.min(first + size.get(), ids.size()));
+    }
+
     @Override
     @Transactional
     public ItemCommentResponseDto addComment(Long userId, ItemCommentRequestDto inComment, Long itemId)
@@ -250,11 +407,13 @@ public class ItemServiceImpl implements ItemService {
             log.info(msg);
             throw new BadRequestException(msg);
         }
-        return modelMapper.map(commentsRepository.save(itemComment), ItemCommentResponseDto.class);
+        ItemComment saved = commentsRepository.save(itemComment);
+        eventPublisher.publishEvent(InvalidationEvent.item(itemId));
+        return modelMapper.map(saved, ItemCommentResponseDto.class);
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public List<ItemCommentResponseDto> getAllItemComments(Long itemId) {
         return commentsRepository.findAllByItemId(itemId)
                 .stream()
@@ -0,0 +1,12 @@
+package ru.practicum.shareit.item.storage;
+
+import ru.practicum.shareit.item.dto.ItemResponseDto;
+
+import java.util.List;
+
+public interface ItemDtoRepository {
+
+    List<ItemResponseDto> findUserItemLikeDto(String text);
+
+    List<ItemResponseDto> findUserItemLikeDtoPage(String text, Integer from, Integer size);
+}
@@ -0,0 +1,40 @@
+package ru.practicum.shareit.item.storage;
+
+import ru.practicum.shareit.item.dto.ItemResponseDto;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.util.List;
+
+// Поиск по подстроке сразу в DTO: вещи не попадают в контекст персистентности.
+// Через @Query нельзя - Spring Data читает DTO-результат native-запроса как Tuple
+public class ItemDtoRepositoryImpl implements ItemDtoRepository {
+    private static final String LIKE = "SELECT new ru.practicum.shareit.item.dto.ItemResponseDto("
+            + "i.id, i.owner.id, i.name, i.description, i.available, i.requestId) "
+            + "  FROM Item i "
+            + " WHERE i.available = true "
+            + "   AND (   upper(i.name) LIKE concat('%', upper(:text), '%') "
+            + "        OR upper(i.description) LIKE concat('%', upper(:text), '%'))";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ItemResponseDto> findUserItemLikeDto(String text) {
+        return query(text).getResultList();
+    }
+
+    @Override
+    public List<ItemResponseDto> findUserItemLikeDtoPage(String text, Integer from, Integer size) {
+        return query(text)
+                .setFirstResult(from)
+                .setMaxResults(size)
+                .getResultList();
+    }
+
+    private TypedQuery<ItemResponseDto> query(String text) {
+        return entityManager.createQuery(LIKE, ItemResponseDto.class)
+                .setParameter("text", text);
+    }
+}
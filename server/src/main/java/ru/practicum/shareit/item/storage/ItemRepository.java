@@ -1,20 +1,31 @@
 package ru.practicum.shareit.item.storage;
 
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.item.dto.ItemResponseDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hibernate.annotations.QueryHints.NATIVE_SPACES;
 
 @EnableJpaRepositories
 @Transactional
-public interface ItemRepository extends JpaRepository<Item, Long> {
+public interface ItemRepository extends JpaRepository<Item, Long>, ItemDtoRepository {
 
     ArrayList<Item> findAllByOwnerOrderByIdAsc(User owner);
 
@@ -24,11 +35,35 @@ public interface ItemRepository extends JpaRepository<Item, Long> {
 
     ArrayList<Item> findAllByRequestIdNotNull();
 
+    ArrayList<Item> findAllByRequestIdIn(Collection<Long> requestIds);
+
+    @EntityGraph(attributePaths = "owner")
+    List<Item> findAllByIdIn(Collection<Long> ids);
+
+    // Проекции для списков: DTO строятся прямо из строк результата, без сущностей в контексте персистентности
+    @Query("SELECT new ru.practicum.shareit.item.dto.ItemResponseDto("
+            + "i.id, i.owner.id, i.name, i.description, i.available, i.requestId) "
+            + "FROM Item i WHERE i.owner.id = :ownerId ORDER BY i.id")
+    List<ItemResponseDto> findResponseDtoByOwnerId(@Param("ownerId") long ownerId);
+
+    @Query("SELECT new ru.practicum.shareit.item.dto.ItemResponseDto("
+            + "i.id, i.owner.id, i.name, i.description, i.available, i.requestId) "
+            + "FROM Item i WHERE i.owner.id = :ownerId")
+    List<ItemResponseDto> findResponseDtoByOwnerIdPage(@Param("ownerId") long ownerId, Pageable page);
+
+    @Query("SELECT new ru.practicum.shareit.item.dto.ItemResponseDto("
+            + "i.id, i.owner.id, i.name, i.description, i.available, i.requestId) "
+            + "FROM Item i WHERE i.id IN :ids ORDER BY i.id")
+    List<ItemResponseDto> findResponseDtoByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Сбрасывает из кэша второго уровня только регион items
     @Modifying
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "items"))
     @Query(value = "UPDATE items SET "
             + "     item_name = CASE WHEN :itemName is not null THEN :itemName ELSE item_name END,"
             + "  description  = CASE WHEN :description is not null THEN :description ELSE description END, "
-            + "    available  = CASE WHEN :available is not null THEN :available ELSE available END "
+            + "    available  = CASE WHEN :available is not null THEN :available ELSE available END, "
+            + "      version  = version + 1 "
             + " WHERE item_id = :idItem "
             + "   AND owner_user_id = :idUser ",
             nativeQuery = true)
@@ -39,6 +74,34 @@ public interface ItemRepository extends JpaRepository<Item, Long> {
             @Param("idItem") long idItem,
             @Param("idUser") long idUser);
 
+    // Все, от чего зависит ответ GET /items/{id}: версия вещи, комментарии с авторами,
+    // а для владельца - текущие последнее и следующее бронирования (те же индексы, что у getLastPrevByItemId)
+    @Query(value = "SELECT CONCAT_WS(':', i.version, \n"
+            + "            (SELECT CONCAT_WS('.', count(*), max(c.id), sum(c.version + a.version)) \n"
+            + "               FROM comments c \n"
+            + "               JOIN users a ON a.user_id = c.author_id \n"
+            + "              WHERE c.item_id = i.item_id), \n"
+            + "            CASE WHEN i.owner_user_id = :userId THEN CONCAT_WS(':', 'owner', \n"
+            + "                COALESCE((SELECT CONCAT_WS('.', b.booking_id, b.version, u.version) \n"
+            + "                            FROM bookings b \n"
+            + "                            JOIN users u ON u.user_id = b.booker_user_id \n"
+            + "                           WHERE b.item_id = i.item_id AND b.status_id = 1 AND b.date_from < :now \n"
+            + "                           ORDER BY b.date_end DESC, b.booking_id DESC \n"
+            + "                           LIMIT 1), '-'), \n"
+            + "                COALESCE((SELECT CONCAT_WS('.', b.booking_id, b.version, u.version) \n"
+            + "                            FROM bookings b \n"
+            + "                            JOIN users u ON u.user_id = b.booker_user_id \n"
+            + "                           WHERE b.item_id = i.item_id AND b.status_id = 1 AND b.date_from > :now \n"
+            + "                           ORDER BY b.date_from, b.booking_id \n"
+            + "                           LIMIT 1), '-')) END) \n"
+            + "       FROM items i \n"
+            + "      WHERE i.item_id = :itemId",
+            nativeQuery = true)
+    Optional<String> findVersionTag(
+            @Param("itemId") long itemId,
+            @Param("userId") long userId,
+            @Param("now") LocalDateTime now);
+
     @Query(value = "SELECT * "
             + "       FROM items \n"
             + "      WHERE available = true \n"
@@ -62,4 +125,24 @@ public interface ItemRepository extends JpaRepository<Item, Long> {
             @Param("from") Integer from,
             @Param("size") Integer size);
 
+    @Query(value = "SELECT * "
+            + "       FROM items \n"
+            + "      WHERE available = true \n"
+            + "        AND to_tsvector('simple', coalesce(item_name, '') || ' ' || coalesce(description, '')) \n"
+            + "            @@ plainto_tsquery('simple', :text) \n",
+            nativeQuery = true)
+    ArrayList<Item> findUserItemFullText(@Param("text") String text);
+
+    @Query(value = "SELECT * "
+            + "       FROM items \n"
+            + "      WHERE available = true \n"
+            + "        AND to_tsvector('simple', coalesce(item_name, '') || ' ' || coalesce(description, '')) \n"
+            + "            @@ plainto_tsquery('simple', :text) \n"
+            + "      LIMIT :size OFFSET :from \n",
+            nativeQuery = true)
+    ArrayList<Item> findUserItemFullTextPage(
+            @Param("text") String text,
+            @Param("from") Integer from,
+            @Param("size") Integer size);
+
 }
@@ -0,0 +1,217 @@
+package ru.practicum.shareit.item.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+// Инвертированный индекс триграмм по названию и описанию вещей (режим shareit.item.search.mode=index).
+// Триграммы только сужают список кандидатов, совпадение проверяется как подстрока - семантика та же, что у LIKE.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItemSearchIndex {
+    private static final int GRAM = 3;
+
+    private final ItemRepository itemRepository;
+    private final Map<Long, Doc> docs = new HashMap<>();
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Изменения, закоммиченные во время прогрева: снимок мог их не увидеть, применяются после него под той же блокировкой
+    private List<Runnable> pending;
+    private volatile boolean warm = false;
+
+    @Value("${shareit.item.search.mode:like}")
+    private String mode;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!isEnabled()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        List<Item> items = itemRepository.findAll();
+        lock.writeLock().lock();
+        try {
+            items.forEach(this::reindex);
+            pending.forEach(Runnable::run);
+            pending = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        warm = true;
+        log.info("Поисковый индекс вещей построен: вещей {}, триграмм {}", docs.size(), postings.size());
+    }
+
+    public boolean isWarm() {
+        return warm;
+    }
+
+    // id доступных вещей, в названии или описании которых есть text (без учета регистра), по возрастанию
+    public List<Long> search(String text) {
+        String query = normalize(text);
+        List<Long> found = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Set<Long> candidates = query.length() < GRAM ? docs.keySet() : candidates(query);
+            for (Long id : candidates) {
+                Doc doc = docs.get(id);
+                if (doc.isAvailable() && (doc.getName().contains(query) || doc.getDescription().contains(query))) {
+                    found.add(id);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        found.sort(Long::compareTo);
+        return found;
+    }
+
+    public void put(Item item) {
+        afterCommit(() -> reindex(item));
+    }
+
+    public void remove(long itemId) {
+        afterCommit(() -> unindex(itemId));
+    }
+
+    public void removeOwner(long ownerId) {
+        afterCommit(() -> docs.entrySet().stream()
+                .filter(e -> Objects.equals(e.getValue().getOwnerId(), ownerId))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList())
+                .forEach(this::unindex));
+    }
+
+    private boolean isEnabled() {
+        return "index".equalsIgnoreCase(mode);
+    }
+
+    private Set<Long> candidates(String query) {
+        Set<Long> result = null;
+        for (String gram : grams(query)) {
+            Set<Long> ids = postings.get(gram);
+            if (Objects.isNull(ids)) {
+                return Set.of();
+            }
+            if (Objects.isNull(result)) {
+                result = new HashSet<>(ids);
+            } else {
+                result.retainAll(ids);
+            }
+        }
+        return Objects.isNull(result) ? Set.of() : result;
+    }
+
+    // До и после прогрева изменение применяется сразу, во время прогрева - откладывается до конца снимка
+    private void apply(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            if (Objects.nonNull(pending)) {
+                pending.add(change);
+            } else {
+                change.run();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void reindex(Item item) {
+        unindex(item.getId());
+        index(item);
+    }
+
+    private void index(Item item) {
+        Doc doc = new Doc(Objects.isNull(item.getOwner()) ? null : item.getOwner().getId(),
+                normalize(item.getName()), normalize(item.getDescription()),
+                Boolean.TRUE.equals(item.getAvailable()));
+        docs.put(item.getId(), doc);
+        for (String gram : doc.grams()) {
+            postings.computeIfAbsent(gram, g -> new HashSet<>()).add(item.getId());
+        }
+    }
+
+    private void unindex(long itemId) {
+        Doc doc = docs.remove(itemId);
+        if (Objects.isNull(doc)) {
+            return;
+        }
+        for (String gram : doc.grams()) {
+            Set<Long> ids = postings.get(gram);
+            if (Objects.nonNull(ids)) {
+                ids.remove(itemId);
+                if (ids.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static String normalize(String text) {
+        return Objects.isNull(text) ? "" : text.toUpperCase(Locale.ROOT);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!isEnabled()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(action);
+                }
+            });
+        } else {
+            apply(action);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class Doc {
+        private final Long ownerId;
+        private final String name;
+        private final String description;
+        private final boolean available;
+
+        private Set<String> grams() {
+            Set<String> grams = ItemSearchIndex.grams(name);
+            grams.addAll(ItemSearchIndex.grams(description));
+            return grams;
+        }
+    }
+}
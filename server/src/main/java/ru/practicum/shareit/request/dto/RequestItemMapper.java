@@ -0,0 +1,27 @@
+package ru.practicum.shareit.request.dto;
+
+import ru.practicum.shareit.request.model.RequestItem;
+
+import java.util.ArrayList;
+import java.util.Objects;
+
+public final class RequestItemMapper {
+    private RequestItemMapper() {
+    }
+
+    public static RequestItemResponseDto toResponseDto(RequestItem requestItem) {
+        return RequestItemResponseDto.builder()
+                .id(requestItem.getId())
+                .description(requestItem.getDescription())
+                .requester(Objects.isNull(requestItem.getRequester()) ? null : requestItem.getRequester().getId())
+                .created(requestItem.getCreated())
+                .items(Objects.isNull(requestItem.getItems()) ? null : new ArrayList<>(requestItem.getItems()))
+                .build();
+    }
+
+    public static RequestItem toRequestItem(RequestItemRequestDto requestItemRequestDto) {
+        RequestItem requestItem = new RequestItem();
+        requestItem.setDescription(requestItemRequestDto.getDescription());
+        return requestItem;
+    }
+}
@@ -3,6 +3,7 @@ package ru.practicum.shareit.request.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.modelmapper.ModelMapper;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Repository;
@@ -11,6 +12,7 @@ import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.error.exceptions.BadRequestException;
 import ru.practicum.shareit.error.exceptions.NoContentException;
+import ru.practicum.shareit.invalidation.InvalidationEvent;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.request.dto.RequestItemRequestDto;
@@ -26,14 +28,16 @@ import static java.util.stream.Collectors.*;
 @Slf4j
 @Repository
 @RequiredArgsConstructor
-@Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.SERIALIZABLE)
+@Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.READ_COMMITTED)
 public class RequestServiceImpl implements RequestService {
     private final RequestRepository requestRepository;
     private final UserService userService;
     private final ItemService itemService;
     private final ModelMapper modelMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
+    @Transactional(readOnly = true)
     public List<RequestItem> getAll(Long userId,
                                     Optional<Integer> from,
                                     Optional<Integer> size
@@ -51,6 +55,7 @@ public class RequestServiceImpl implements RequestService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<RequestItem> getAllUserItemRequests(Long userId) throws NoContentException {
         List<RequestItem> rList = requestRepository.findAllByRequesterOrderByCreated(userService.getUserById(userId));
         setLinkedItems(rList);
@@ -58,6 +63,7 @@ public class RequestServiceImpl implements RequestService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public RequestItem getById(Long id, Long userId) throws NoContentException {
         User user = userService.getUserById(userId);
         Optional<RequestItem> outModel = requestRepository.findById(id);
@@ -76,7 +82,9 @@ public class RequestServiceImpl implements RequestService {
             if (Objects.nonNull(user)) {
                 RequestItem itemRequest = modelMapper.map(requestDto, RequestItem.class);
                 itemRequest.setRequester(user);
-                return requestRepository.save(itemRequest);
+                RequestItem saved = requestRepository.save(itemRequest);
+                eventPublisher.publishEvent(InvalidationEvent.request(saved.getId()));
+                return saved;
             }
             String msg = String.format("Нет пользователя с 'id' %s.", userId);
             log.info(msg);
@@ -88,7 +96,14 @@ public class RequestServiceImpl implements RequestService {
     }
 
     private List<RequestItem> setLinkedItems(List<RequestItem> requestItems) {
-        Map<Long, List<Item>> itemsMap = itemService.getAllByRequestIdNotNull()
+        if (requestItems.isEmpty()) {
+            return requestItems;
+        }
+        // Только вещи запросов текущей страницы
+        Set<Long> requestIds = requestItems.stream()
+                .map(RequestItem::getId)
+                .collect(toSet());
+        Map<Long, List<Item>> itemsMap = itemService.getAllByRequestIdIn(requestIds)
                 .stream()
                 .collect(groupingBy(Item::getRequestId, toList()));
         List<RequestItem> linkedRequests = requestItems
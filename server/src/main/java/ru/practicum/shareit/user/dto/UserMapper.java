@@ -0,0 +1,24 @@
+package ru.practicum.shareit.user.dto;
+
+import ru.practicum.shareit.user.model.User;
+
+public final class UserMapper {
+    private UserMapper() {
+    }
+
+    public static UserResponseDto toResponseDto(User user) {
+        return UserResponseDto.builder()
+                .id(user.getId())
+                .email(user.getEmail())
+                .name(user.getName())
+                .build();
+    }
+
+    public static User toUser(UserRequestDto userRequestDto) {
+        User user = new User();
+        user.setId(userRequestDto.getId());
+        user.setEmail(userRequestDto.getEmail());
+        user.setName(userRequestDto.getName());
+        return user;
+    }
+}
@@ -3,8 +3,12 @@ package ru.practicum.shareit.user.model;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.DynamicUpdate;
+import ru.practicum.shareit.config.EntityCacheConfig;
 
 import javax.persistence.*;
 import java.util.HashSet;
@@ -17,6 +21,7 @@ import java.util.Set;
 @AllArgsConstructor
 @NoArgsConstructor
 @DynamicUpdate
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = EntityCacheConfig.USERS)
 public class User {
     @Id
     @Column(name = "user_id")
@@ -26,6 +31,10 @@ public class User {
     private String email;
     @Column(name = "user_name")
     private String name;
+    // Ведет база: DEFAULT 0, +1 в partialUpdate; из версий строится ETag ответов
+    @Column(name = "version", insertable = false, updatable = false, columnDefinition = "bigint default 0 not null")
+    @EqualsAndHashCode.Exclude
+    private Long version;
 
     @ElementCollection
     @CollectionTable(name = "items", joinColumns = @JoinColumn(name = "owner_user_id"))
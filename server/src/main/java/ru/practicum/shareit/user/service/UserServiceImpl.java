@@ -3,11 +3,19 @@ package ru.practicum.shareit.user.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.storage.BookingIntervalIndex;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemSearchIndex;
+import ru.practicum.shareit.invalidation.InvalidationEvent;
 import ru.practicum.shareit.error.exceptions.BadRequestException;
 import ru.practicum.shareit.error.exceptions.NoContentException;
 import ru.practicum.shareit.user.dto.UserRequestDto;
@@ -15,20 +23,34 @@ import ru.practicum.shareit.user.dto.UserResponseDto;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.storege.UserRepository;
 
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
 import java.util.*;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
-@Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.SERIALIZABLE)
+@Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.READ_COMMITTED)
 public class UserServiceImpl implements UserService {
     private final UserRepository repository;
     private final ModelMapper modelMapper;
+    private final BookingIntervalIndex bookingIndex;
+    private final ItemSearchIndex itemSearchIndex;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // projection - списки читаются сразу в DTO, entity - через сущности
+    @Value("${shareit.read.mode:entity}")
+    private String readMode;
 
     @Override
+    @Transactional(readOnly = true)
     public List<UserResponseDto> getAllUsers() {
-        log.info("Зарос всех пользователей");
+        log.debug("Зарос всех пользователей");
+        if ("projection".equalsIgnoreCase(readMode)) {
+            return repository.findAllResponseDto();
+        }
         Sort sortById = Sort.by(Sort.Direction.ASC, "id");
         return repository.findAll(sortById).stream()
                 .map(p -> modelMapper.map(p, UserResponseDto.class))
@@ -36,9 +58,9 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public User getUserById(Long id) throws NoContentException {
-        log.info("Зарос пользователя");
+        log.debug("Зарос пользователя");
         Optional<User> user = repository.findById(id);
         if (user.isPresent()) {
             return user.get();
@@ -49,7 +71,7 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public UserResponseDto getUserDtoById(Long id) throws NoContentException {
         return modelMapper.map(getUserById(id), UserResponseDto.class);
     }
@@ -57,37 +79,61 @@ public class UserServiceImpl implements UserService {
     @Override
     @Transactional
     public UserResponseDto createUser(UserRequestDto userRequestDto) throws BadRequestException {
-        log.info("Зарос создания пользователя");
+        log.debug("Зарос создания пользователя");
         User user = isUserDataExist(userRequestDto);
         ArrayList<User> usersSameEmail = repository.findByEmailContainingIgnoreCase(user.getEmail());
-        return modelMapper.map(repository.save(user), UserResponseDto.class);
+        User saved = repository.save(user);
+        eventPublisher.publishEvent(InvalidationEvent.user(saved.getId()));
+        return modelMapper.map(saved, UserResponseDto.class);
     }
 
     @Override
     @Transactional
     public UserResponseDto updateUser(Long id, UserRequestDto userRequestDto)
             throws BadRequestException, NoContentException {
-        log.info("Зарос обновления пользователя");
+        log.debug("Зарос обновления пользователя");
         User user = isUserDataExist(userRequestDto);
         user.setId(id);
         repository.partialUpdate(user.getEmail(), user.getName(), user.getId());
+        // Регион кэша Hibernate сбрасывает только при завершении транзакции, до этого там старая версия
+        entityManagerFactory.getCache().evict(User.class, id);
+        eventPublisher.publishEvent(InvalidationEvent.user(id));
         return modelMapper.map(getUserById(id), UserResponseDto.class);
     }
 
     @Override
     @Transactional
     public void delete(Long id) throws BadRequestException {
-        log.info("Зарос удаления пользователя");
+        log.debug("Зарос удаления пользователя");
         repository.deleteAllById(Collections.singleton(id));
+        bookingIndex.removeBooker(id);
+        itemSearchIndex.removeOwner(id);
+        evictItemsAfterCommit();
+        eventPublisher.publishEvent(InvalidationEvent.user(id));
+    }
+
+    // Вещи пользователя удаляет ON DELETE CASCADE в базе, Hibernate о них не знает и не сбросит их из кэша
+    private void evictItemsAfterCommit() {
+        Cache cache = entityManagerFactory.getCache();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.evict(Item.class);
+                }
+            });
+        } else {
+            cache.evict(Item.class);
+        }
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public User isUserDataExist(UserRequestDto userRequestDto) throws BadRequestException {
         if (Objects.nonNull(userRequestDto)) {
             return modelMapper.map(userRequestDto, User.class);
         }
-        String msg = String.format("Тело запроса не содержит данных");
+        String msg = "Тело запроса не содержит данных";
         log.info(msg);
         throw new BadRequestException(msg);
     }
@@ -0,0 +1,16 @@
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+ALTER TABLE public.bookings DROP CONSTRAINT IF EXISTS bookings_no_overlap;
+
+ALTER TABLE public.bookings
+    ADD CONSTRAINT bookings_no_overlap
+    EXCLUDE USING gist (item_id WITH =, tsrange(date_from, date_end, '[]') WITH &&)
+    WHERE (status_id IN (0, 1));
+
+-- Поиск вещей: триграммы обслуживают LIKE '%...%' по upper(), tsvector - режим fulltext
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS items_name_trgm_idx ON items USING gin (upper(item_name) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS items_description_trgm_idx ON items USING gin (upper(description) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS items_search_tsv_idx ON items
+    USING gin (to_tsvector('simple', coalesce(item_name, '') || ' ' || coalesce(description, '')));
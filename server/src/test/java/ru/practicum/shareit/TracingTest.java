@@ -0,0 +1,77 @@
+package ru.practicum.shareit;
+
+import brave.handler.MutableSpan;
+import brave.handler.SpanHandler;
+import brave.propagation.TraceContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(TracingTest.SpanCollector.class)
+class TracingTest {
+    // трасса и спан, которые шлюз передает в заголовке b3
+    private static final String TRACE_ID = "463ac35c9f6413ad48485a3953bb6124";
+    private static final String GATEWAY_SPAN_ID = "a2fb4a1d1a96d312";
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private List<MutableSpan> spans;
+
+    @Test
+    void server_continues_gateway_trace_with_jdbc_children() throws Exception {
+        mvc.perform(get("/users").header("b3", TRACE_ID + "-" + GATEWAY_SPAN_ID + "-1"))
+                .andExpect(status().isOk());
+
+        List<MutableSpan> trace = spans.stream()
+                .filter(span -> TRACE_ID.equals(span.traceId()))
+                .collect(Collectors.toList());
+        assertFalse(trace.isEmpty());
+        // B3 по умолчанию разделяет спан: серверная половина получает id клиентского спана шлюза
+        MutableSpan server = trace.stream()
+                .filter(span -> span.kind() == brave.Span.Kind.SERVER)
+                .findFirst()
+                .orElseThrow();
+        assertEquals(GATEWAY_SPAN_ID, server.id());
+        // SQL-запрос - внутри спана соединения той же трассы
+        assertTrue(trace.stream().anyMatch(span -> span.tag("jdbc.query") != null));
+        assertTrue(trace.stream().anyMatch(span -> "connection".equals(span.name())
+                && GATEWAY_SPAN_ID.equals(span.parentId())));
+    }
+
+    @TestConfiguration
+    static class SpanCollector {
+        @Bean
+        public List<MutableSpan> spans() {
+            return new CopyOnWriteArrayList<>();
+        }
+
+        @Bean
+        public SpanHandler collectingSpanHandler(List<MutableSpan> spans) {
+            return new SpanHandler() {
+                @Override
+                public boolean end(TraceContext context, MutableSpan span, Cause cause) {
+                    spans.add(span);
+                    return true;
+                }
+            };
+        }
+    }
+}
@@ -8,14 +8,18 @@ import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingPageDto;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
 import ru.practicum.shareit.booking.enums.BookingRequestStatus;
 import ru.practicum.shareit.booking.enums.BookingStatus;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.invalidation.InvalidationBroadcaster;
 import ru.practicum.shareit.item.dto.ItemResponseDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.service.ItemService;
@@ -30,8 +34,11 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest
@@ -48,6 +55,8 @@ class BookingControllerTest {
     private BookingService bookingService;
     @MockBean
     private UserService userService;
+    @MockBean
+    private InvalidationBroadcaster invalidationBroadcaster;
 
     private final ObjectMapper mapper = new ObjectMapper();
 
@@ -120,6 +129,27 @@ class BookingControllerTest {
         ).andExpect(status().isOk());
     }
 
+    @Test
+    @SneakyThrows
+    void addBatch_ok() {
+        mapper.registerModule(new JavaTimeModule());
+        List<BookingBatchResultDto> results = List.of(
+                BookingBatchResultDto.builder().index(0).booking(bookingResponseDto).build(),
+                BookingBatchResultDto.builder().index(1).error("Вещь недоступна к бронированию, период занят").build());
+        when(bookingService.addBatch(id, List.of(bookingRequestDto, bookingRequestDto))).thenReturn(results);
+        String result = mvc.perform(post("/bookings/batch")
+                        .header("X-Sharer-User-Id", id)
+                        .content(mapper.writeValueAsString(List.of(bookingRequestDto, bookingRequestDto)))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8);
+        assertEquals(mapper.writeValueAsString(results), result);
+    }
+
     @Test
     @SneakyThrows
     void getFromUser() {
@@ -142,6 +172,22 @@ class BookingControllerTest {
         assertEquals(waitedResponse, result);
     }
 
+    @Test
+    @SneakyThrows
+    void getFromUser_cursor() {
+        String waitedResponse = mapper.writeValueAsString(List.of(bookingResponseDto));
+        when(bookingService.getFromUserByCursor(id, "ALL", false, "", Optional.of(1)))
+                .thenReturn(new BookingPageDto(List.of(bookingResponseDto), "next"));
+        String result = mvc.perform(get("/bookings/?state=ALL&cursor=&size=1")
+                        .header("X-Sharer-User-Id", id))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "next"))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        assertEquals(waitedResponse, result);
+    }
+
     @Test
     @SneakyThrows
     void getFromOwner() {
@@ -190,4 +236,16 @@ class BookingControllerTest {
                 .getResponse()
                 .getContentAsString();
     }
-}
\ No newline at end of file
+
+    @Test
+    @SneakyThrows
+    void getFromBookerOrOwner_not_modified() {
+        when(bookingService.getETag(id, id)).thenReturn(Optional.of("v1"));
+        mvc.perform(get("/bookings/1")
+                        .header("X-Sharer-User-Id", id)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"v1\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"v1\""));
+        verify(bookingService, never()).getFromBookerOrOwner(id, id);
+    }
+}
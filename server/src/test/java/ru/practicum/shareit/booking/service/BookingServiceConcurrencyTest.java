@@ -0,0 +1,106 @@
+package ru.practicum.shareit.booking.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.booking.dto.BookingRequestDto;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.error.exceptions.NoContentException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storege.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Индекс отключен, чтобы проверка свободного периода шла запросом к базе под блокировкой вещи
+@SpringBootTest(properties = "shareit.booking.interval-index.enabled=false")
+class BookingServiceConcurrencyTest {
+    private static final int THREADS = 8;
+
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+
+    private User owner;
+    private User booker;
+    private Item item;
+
+    // Тест коммитит строки, а контекст и база общие с остальными @SpringBootTest - убираем за собой
+    @AfterEach
+    void cleanUp() {
+        if (item != null) {
+            bookingRepository.deleteAll(bookingRepository.findAllByItemAndStatusOrderByEndAsc(item, BookingStatus.WAITING));
+            itemRepository.delete(item);
+        }
+        if (owner != null) {
+            userRepository.delete(owner);
+        }
+        if (booker != null) {
+            userRepository.delete(booker);
+        }
+    }
+
+    @Test
+    void add_parallel_same_period_no_double_booking() throws Exception {
+        owner = userRepository.save(User.builder().email("lock-owner@mail.ru").name("owner").build());
+        booker = userRepository.save(User.builder().email("lock-booker@mail.ru").name("booker").build());
+        item = itemRepository.save(Item.builder().owner(owner).name("drill").available(true).build());
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch startGate = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            BookingRequestDto request = BookingRequestDto.builder()
+                    .itemId(item.getId())
+                    .start(start.plusHours(i))
+                    .end(start.plusDays(1).plusHours(i))
+                    .build();
+            Callable<Boolean> task = () -> {
+                startGate.await();
+                try {
+                    bookingService.add(booker.getId(), request);
+                    return true;
+                } catch (NoContentException e) {
+                    return false;
+                }
+            };
+            results.add(executor.submit(task));
+        }
+        startGate.countDown();
+
+        int created = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get(30, TimeUnit.SECONDS)) {
+                created++;
+            }
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(1, created);
+        assertEquals(1, bookingRepository.findAllByStatusIn(List.of(BookingStatus.WAITING, BookingStatus.APPROVED))
+                .stream()
+                .filter(b -> b.getItemId().equals(item.getId()))
+                .count());
+    }
+}
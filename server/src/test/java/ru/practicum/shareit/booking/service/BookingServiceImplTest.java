@@ -7,10 +7,17 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.modelmapper.ModelMapper;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingPageDto;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
 import ru.practicum.shareit.booking.enums.BookingStatus;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.storage.BookingIntervalIndex;
 import ru.practicum.shareit.booking.storage.BookingRepository;
 import ru.practicum.shareit.error.exceptions.BadRequestException;
 import ru.practicum.shareit.error.exceptions.NoContentException;
@@ -25,13 +32,22 @@ import ru.practicum.shareit.user.dto.UserResponseDto;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
 
-import javax.persistence.EntityManager;
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 
@@ -42,8 +58,6 @@ class BookingServiceImplTest {
     @Mock
     private ModelMapper modelMapper;
     @Mock
-    private EntityManager entityManager;
-    @Mock
     private ItemService itemService;
     @Mock
     private ItemRepository itemRepository;
@@ -51,12 +65,19 @@ class BookingServiceImplTest {
     private CommentRepository commentRepository;
     @Mock
     private BookingRepository bookingRepository;
+    @Mock
+    private BookingIntervalIndex bookingIndex;
+    @Mock
+    private BookingAdmissionLock admissionLock;
 
     @Mock
     private RequestRepository requestRepository;
     @Mock
     private RequestServiceImpl requestService;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private BookingServiceImpl bookingService;
 
@@ -137,10 +158,117 @@ class BookingServiceImplTest {
         when(modelMapper.map(booking, BookingResponseDto.class)).thenReturn(bookingResponseDto);
         when(bookingService.isBookingAvailable(id, from, to)).thenReturn(true);
         when(bookingRepository.save(booking)).thenReturn(booking);
-        when(bookingRepository.existsById(id)).thenReturn(true);
-        when(bookingRepository.findById(id)).thenReturn(Optional.of(booking));
-        when(bookingService.getDtoById(id)).thenReturn(bookingResponseDto);
+        when(bookingIndex.add(booking)).thenReturn(true);
         assertEquals(id, bookingService.add(id2, bookingRequestDto).getId());
+        assertEquals(item, booking.getItem());
+        verify(bookingRepository, never()).findById(id);
+    }
+
+    @Test
+    @SneakyThrows
+    void add_index_race_err() {
+        when(itemService.getItemById(id, id2)).thenReturn(item);
+        when(userService.getUserById(id2)).thenReturn(User.builder().id(id2).build());
+        when(modelMapper.map(bookingRequestDto, Booking.class)).thenReturn(booking);
+        when(bookingIndex.isWarm(id)).thenReturn(true);
+        when(bookingIndex.isAvailable(id, from, to)).thenReturn(true);
+        when(bookingRepository.save(booking)).thenReturn(booking);
+        when(bookingIndex.add(booking)).thenReturn(false);
+        assertThrows(NoContentException.class, () -> bookingService.add(id2, bookingRequestDto));
+    }
+
+    @Test
+    @SneakyThrows
+    void add_exclusion_violation_err() {
+        ReflectionTestUtils.setField(bookingService, "exclusionConstraint", true);
+        when(itemService.getItemById(id, id2)).thenReturn(item);
+        when(userService.getUserById(id2)).thenReturn(User.builder().id(id2).build());
+        when(modelMapper.map(bookingRequestDto, Booking.class)).thenReturn(booking);
+        when(bookingIndex.isWarm(id)).thenReturn(false);
+        when(bookingRepository.save(booking)).thenThrow(new DataIntegrityViolationException("overlap",
+                new SQLException("conflicting key value violates exclusion constraint", "23P01")));
+        assertThrows(NoContentException.class, () -> bookingService.add(id2, bookingRequestDto));
+        verify(admissionLock, never()).lock(id);
+    }
+
+    @Test
+    @SneakyThrows
+    void addBatch_size_err() {
+        ReflectionTestUtils.setField(bookingService, "batchMaxSize", 1);
+        assertThrows(BadRequestException.class,
+                () -> bookingService.addBatch(id2, List.of(bookingRequestDto, bookingRequestDto)));
+        verify(bookingRepository, never()).insertAll(anyList());
+    }
+
+    @Test
+    @SneakyThrows
+    void addBatch_per_entry_ok() {
+        ReflectionTestUtils.setField(bookingService, "batchMaxSize", 100);
+        User booker = User.builder().id(id2).build();
+        BookingRequestDto first = BookingRequestDto.builder().itemId(id).start(from).end(to).build();
+        BookingRequestDto overlapping = BookingRequestDto.builder().itemId(id).start(to).end(to.plusDays(1)).build();
+        BookingRequestDto noItem = BookingRequestDto.builder().itemId(99L).start(from).end(to).build();
+        BookingRequestDto taken = BookingRequestDto.builder().itemId(id).start(to.plusDays(5)).end(to.plusDays(6)).build();
+        Booking existing = Booking.builder().id(7L).item(item).booker(user)
+                .start(to.plusDays(4)).end(to.plusDays(5)).build();
+        Booking created = Booking.builder().start(from).end(to).build();
+        when(userService.getUserById(id2)).thenReturn(booker);
+        when(itemService.getItemsByIds(Set.of(id, 99L))).thenReturn(List.of(item));
+        when(bookingRepository.findAllByItemIdsInPeriod(Set.of(id),
+                List.of(BookingStatus.WAITING, BookingStatus.APPROVED), from, to.plusDays(6)))
+                .thenReturn(List.of(existing));
+        when(modelMapper.map(first, Booking.class)).thenReturn(created);
+        when(modelMapper.map(created, BookingResponseDto.class)).thenReturn(bookingResponseDto);
+        when(bookingIndex.add(created)).thenReturn(true);
+
+        List<BookingBatchResultDto> results =
+                bookingService.addBatch(id2, List.of(first, overlapping, noItem, taken));
+
+        verify(admissionLock).lockAll(Set.of(id, 99L));
+        verify(bookingRepository).insertAll(List.of(created));
+        assertEquals(BookingStatus.WAITING, created.getStatus());
+        assertEquals(booker, created.getBooker());
+        assertEquals(bookingResponseDto, results.get(0).getBooking());
+        assertNull(results.get(0).getError());
+        assertEquals("Вещь недоступна к бронированию, период занят", results.get(1).getError());
+        assertEquals("Нет вещи с 'id' 99.", results.get(2).getError());
+        assertEquals("Вещь недоступна к бронированию, период занят", results.get(3).getError());
+        assertEquals(3, results.get(3).getIndex());
+    }
+
+    @Test
+    @SneakyThrows
+    void addBatch_overlap_on_insert_per_entry_err() {
+        ReflectionTestUtils.setField(bookingService, "batchMaxSize", 100);
+        BookingRequestDto first = BookingRequestDto.builder().itemId(id).start(from).end(to).build();
+        BookingRequestDto second = BookingRequestDto.builder().itemId(id)
+                .start(to.plusDays(1)).end(to.plusDays(2)).build();
+        Booking created = Booking.builder().start(from).end(to).build();
+        Booking raced = Booking.builder().start(to.plusDays(1)).end(to.plusDays(2)).build();
+        when(userService.getUserById(id2)).thenReturn(User.builder().id(id2).build());
+        when(itemService.getItemsByIds(Set.of(id))).thenReturn(List.of(item));
+        when(modelMapper.map(first, Booking.class)).thenReturn(created);
+        when(modelMapper.map(second, Booking.class)).thenReturn(raced);
+        when(modelMapper.map(created, BookingResponseDto.class)).thenReturn(bookingResponseDto);
+        when(bookingRepository.insertAll(List.of(created, raced))).thenReturn(List.of(raced));
+        when(bookingIndex.add(created)).thenReturn(true);
+
+        List<BookingBatchResultDto> results = bookingService.addBatch(id2, List.of(first, second));
+
+        verify(admissionLock).lockAll(Set.of(id));
+        assertEquals(bookingResponseDto, results.get(0).getBooking());
+        assertNull(results.get(0).getError());
+        assertNull(results.get(1).getBooking());
+        assertEquals("Вещь недоступна к бронированию, период занят", results.get(1).getError());
+        verify(bookingIndex, never()).add(raced);
+    }
+
+    @Test
+    void isBookingAvailable_warm_index_ok() {
+        when(bookingIndex.isWarm(id)).thenReturn(true);
+        when(bookingIndex.isAvailable(id, from, to)).thenReturn(false);
+        assertEquals(false, bookingService.isBookingAvailable(id, from, to));
+        verify(bookingRepository, never()).isBookingAvailable(id, from, to);
     }
 
     @Test
@@ -188,12 +316,27 @@ class BookingServiceImplTest {
                 .item(item).booker(user)
                 .status(BookingStatus.APPROVED)
                 .build();
-        when(bookingRepository.existsById(1L)).thenReturn(true);
         when(bookingRepository.findById(1L)).thenReturn(Optional.ofNullable(booking));
 
         assertThrows(BadRequestException.class, () -> bookingService.setState(1L, 1L, "true"));
     }
 
+    @Test
+    @SneakyThrows
+    void setState_changed_concurrently_err() {
+        Booking booking = Booking.builder()
+                .id(id).start(from).end(to)
+                .item(item).booker(user)
+                .status(BookingStatus.WAITING)
+                .build();
+        when(bookingRepository.findById(1L)).thenReturn(Optional.ofNullable(booking));
+        when(bookingRepository.updateStatus(
+                BookingStatus.REJECTED.ordinal(), BookingStatus.WAITING.ordinal(), 1L, 1L)).thenReturn(0);
+
+        assertThrows(BadRequestException.class, () -> bookingService.setState(1L, 1L, "false"));
+        verify(bookingIndex, never()).updateStatus(any(), any());
+    }
+
     @Test
     @SneakyThrows
     void setState_Ok() {
@@ -202,13 +345,16 @@ class BookingServiceImplTest {
                 .item(item).booker(user)
                 .status(BookingStatus.CANCELED)
                 .build();
-        when(bookingRepository.existsById(1L)).thenReturn(true);
         when(bookingRepository.findById(1L)).thenReturn(Optional.ofNullable(booking));
+        when(bookingRepository.updateStatus(
+                BookingStatus.APPROVED.ordinal(), BookingStatus.CANCELED.ordinal(), 1L, 1L)).thenReturn(1);
         when(modelMapper.map(booking, BookingResponseDto.class)).thenReturn(bookingResponseDto);
 
         BookingResponseDto updBooking = bookingService.setState(1L, 1L, "true");
 
         assertEquals(1L, updBooking.getId());
+        assertEquals(BookingStatus.APPROVED, updBooking.getStatus());
+        verify(bookingRepository).findById(1L);
     }
 
     @Test
@@ -219,7 +365,6 @@ class BookingServiceImplTest {
                 .item(item).booker(user)
                 .status(BookingStatus.CANCELED)
                 .build();
-        when(bookingRepository.existsById(id)).thenReturn(true);
         when(bookingRepository.findById(id)).thenReturn(Optional.ofNullable(booking));
         when(modelMapper.map(booking, BookingResponseDto.class)).thenReturn(bookingResponseDto);
         BookingResponseDto updBooking = bookingService.getFromBookerOrOwner(id, id);
@@ -234,7 +379,6 @@ class BookingServiceImplTest {
                 .item(item).booker(user)
                 .status(BookingStatus.CANCELED)
                 .build();
-        when(bookingRepository.existsById(id)).thenReturn(true);
         when(bookingRepository.findById(id)).thenReturn(Optional.ofNullable(booking));
 
         assertThrows(NoContentException.class, () -> bookingService.getFromBookerOrOwner(10L, id));
@@ -262,6 +406,21 @@ class BookingServiceImplTest {
         );
     }
 
+    @Test
+    @SneakyThrows
+    void getFromUserByRequest_projection_ok() {
+        ReflectionTestUtils.setField(bookingService, "readMode", "projection");
+        when(userService.getUserById(id)).thenReturn(user);
+        when(bookingRepository.getDtoFromUserByState(id, "ALL", false))
+                .thenReturn(List.of(BookingResponseDto.builder().id(1L).build()));
+        assertEquals(1,
+                bookingService.getFromUserByRequest(id, "ALL",
+                        false, Optional.empty(), Optional.empty()
+                ).size()
+        );
+        verify(bookingRepository, never()).getFromUserByState(anyLong(), anyString(), anyBoolean());
+    }
+
     @Test
     @SneakyThrows
     void getFromUserByRequest_current_ok() {
@@ -317,7 +476,7 @@ class BookingServiceImplTest {
     @Test
     @SneakyThrows
     void getById_err_ok() {
-        when(bookingRepository.existsById(id)).thenReturn(false);
+        when(bookingRepository.findById(id)).thenReturn(Optional.empty());
         assertThrows(NoContentException.class,
                 () -> bookingService.getById(id)
         );
@@ -345,4 +504,38 @@ class BookingServiceImplTest {
                 ));
     }
 
+    @Test
+    @SneakyThrows
+    void getFromUserByCursor_first_page_ok() {
+        Booking older = Booking.builder().id(id2).start(from).end(to.minusHours(1)).item(item).booker(user).build();
+        when(userService.getUserById(id)).thenReturn(user);
+        when(bookingRepository.getFromUserByStatePage(id, "ALL", false, 0, 2))
+                .thenReturn(List.of(booking, older));
+        BookingPageDto page = bookingService.getFromUserByCursor(id, "ALL", false, "", Optional.of(1));
+        assertEquals(1, page.getBookings().size());
+        BookingCursor next = BookingCursor.decode(page.getNextCursor());
+        assertEquals(to, next.getEnd());
+        assertEquals(id, next.getBookingId());
+    }
+
+    @Test
+    @SneakyThrows
+    void getFromUserByCursor_last_page_ok() {
+        when(userService.getUserById(id)).thenReturn(user);
+        when(bookingRepository.getFromUserByStateAfter(id, "ALL", true, to, id2, 2))
+                .thenReturn(List.of(booking));
+        BookingPageDto page = bookingService.getFromUserByCursor(id, "ALL", true,
+                new BookingCursor(to, id2).encode(), Optional.of(1));
+        assertEquals(1, page.getBookings().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    @SneakyThrows
+    void getFromUserByCursor_bad_cursor_err() {
+        when(userService.getUserById(id)).thenReturn(user);
+        assertThrows(BadRequestException.class,
+                () -> bookingService.getFromUserByCursor(id, "ALL", false, "!!!", Optional.empty()));
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,103 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.SneakyThrows;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingRequestDto;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storege.UserRepository;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+// Кэш сущностей и индекс периодов отключены: считаются запросы холодного пути
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "shareit.cache.enabled=false",
+        "shareit.booking.interval-index.enabled=false"})
+class BookingServiceQueryCountTest {
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    @SneakyThrows
+    void add_setState_get_query_count() {
+        User owner = userRepository.save(User.builder().email("count-owner@mail.ru").name("owner").build());
+        User booker = userRepository.save(User.builder().email("count-booker@mail.ru").name("booker").build());
+        Item item = itemRepository.save(Item.builder().owner(owner).name("saw").available(true).build());
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        BookingRequestDto request = BookingRequestDto.builder()
+                .itemId(item.getId()).start(start).end(start.plusDays(1)).build();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        // вещь с владельцем, арендатор, проверка периода, insert
+        statistics.clear();
+        BookingResponseDto created = bookingService.add(booker.getId(), request);
+        assertEquals(4, statistics.getPrepareStatementCount());
+        assertEquals("saw", created.getItem().getName());
+        assertEquals("booker", created.getBooker().getName());
+        assertEquals(BookingStatus.WAITING, created.getStatus());
+
+        // бронирование с вещью и пользователями, update статуса
+        statistics.clear();
+        BookingResponseDto approved = bookingService.setState(owner.getId(), created.getId(), "true");
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(BookingStatus.APPROVED, approved.getStatus());
+
+        statistics.clear();
+        BookingResponseDto read = bookingService.getFromBookerOrOwner(booker.getId(), created.getId());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(BookingStatus.APPROVED, read.getStatus());
+        assertEquals(owner.getId(), read.getItem().getOwner());
+    }
+
+    @Test
+    @SneakyThrows
+    void addBatch_query_count() {
+        User owner = userRepository.save(User.builder().email("batch-owner@mail.ru").name("owner").build());
+        User booker = userRepository.save(User.builder().email("batch-booker@mail.ru").name("booker").build());
+        Item drill = itemRepository.save(Item.builder().owner(owner).name("drill").available(true).build());
+        Item ladder = itemRepository.save(Item.builder().owner(owner).name("ladder").available(true).build());
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        bookingService.add(booker.getId(), BookingRequestDto.builder()
+                .itemId(ladder.getId()).start(start).end(start.plusDays(1)).build());
+        List<BookingRequestDto> requests = new ArrayList<>();
+        for (int week = 0; week < 4; week++) {
+            requests.add(BookingRequestDto.builder().itemId(drill.getId())
+                    .start(start.plusWeeks(week)).end(start.plusWeeks(week).plusDays(1)).build());
+        }
+        requests.add(BookingRequestDto.builder().itemId(ladder.getId()).start(start).end(start.plusHours(1)).build());
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        // арендатор, вещи, занятые периоды; пакетный insert идет мимо Hibernate и здесь не считается
+        statistics.clear();
+        List<BookingBatchResultDto> results = bookingService.addBatch(booker.getId(), requests);
+        assertEquals(3, statistics.getPrepareStatementCount());
+        assertEquals(5, results.size());
+        for (int i = 0; i < 4; i++) {
+            BookingResponseDto created = results.get(i).getBooking();
+            assertEquals(created, bookingService.getDtoById(created.getId()));
+        }
+        assertNull(results.get(4).getBooking());
+        assertEquals("Вещь недоступна к бронированию, период занят", results.get(4).getError());
+    }
+}
@@ -0,0 +1,148 @@
+package ru.practicum.shareit.booking.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookingIntervalIndexTest {
+    @Mock
+    private BookingRepository bookingRepository;
+    @InjectMocks
+    private BookingIntervalIndex bookingIndex;
+
+    private final long itemId = 1L;
+    private final LocalDateTime start = LocalDateTime.now().plusDays(1);
+    private final LocalDateTime end = LocalDateTime.now().plusDays(3);
+    private final User booker = User.builder().id(2L).build();
+    private final Item item = Item.builder().id(itemId).build();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(bookingIndex, "enabled", true);
+    }
+
+    @Test
+    void isWarm_cold_before_warmUp() {
+        assertEquals(false, bookingIndex.isWarm(itemId));
+    }
+
+    @Test
+    void isAvailable_ok() {
+        when(bookingRepository.findAllByStatusInAndEndGreaterThanEqual(anyList(), any()))
+                .thenReturn(List.of(booking(1L, start, end)));
+        bookingIndex.warmUp();
+        assertEquals(true, bookingIndex.isWarm(itemId));
+        assertEquals(true, bookingIndex.isAvailable(itemId, end.plusSeconds(1), end.plusDays(1)));
+        assertEquals(true, bookingIndex.isAvailable(itemId, start.minusDays(1), start.minusSeconds(1)));
+        assertEquals(true, bookingIndex.isAvailable(2L, start, end));
+    }
+
+    @Test
+    void isAvailable_overlap_err() {
+        when(bookingRepository.findAllByStatusInAndEndGreaterThanEqual(anyList(), any()))
+                .thenReturn(List.of(booking(1L, start, end)));
+        bookingIndex.warmUp();
+        assertEquals(false, bookingIndex.isAvailable(itemId, start.minusDays(1), start));
+        assertEquals(false, bookingIndex.isAvailable(itemId, end, end.plusDays(1)));
+        assertEquals(false, bookingIndex.isAvailable(itemId, start.plusHours(1), end.minusHours(1)));
+        assertEquals(false, bookingIndex.isAvailable(itemId, start.minusDays(1), end.plusDays(1)));
+    }
+
+    @Test
+    void add_overlap_err() {
+        when(bookingRepository.findAllByStatusInAndEndGreaterThanEqual(anyList(), any()))
+                .thenReturn(List.of());
+        bookingIndex.warmUp();
+        assertEquals(true, bookingIndex.add(booking(1L, start, end)));
+        assertEquals(false, bookingIndex.add(booking(2L, start.plusHours(1), end.plusDays(1))));
+        assertEquals(true, bookingIndex.add(booking(3L, end.plusDays(1), end.plusDays(2))));
+    }
+
+    @Test
+    void updateStatus_rejected_frees_period() {
+        Booking booking = booking(1L, start, end);
+        when(bookingRepository.findAllByStatusInAndEndGreaterThanEqual(anyList(), any()))
+                .thenReturn(List.of(booking));
+        bookingIndex.warmUp();
+        bookingIndex.updateStatus(booking, BookingStatus.REJECTED);
+        assertEquals(true, bookingIndex.isAvailable(itemId, start, end));
+    }
+
+    @Test
+    void updateStatus_during_warmUp_applied_after_snapshot() {
+        Booking booking = booking(1L, start, end);
+        when(bookingRepository.findAllByStatusInAndEndGreaterThanEqual(anyList(), any())).thenAnswer(invocation -> {
+            bookingIndex.updateStatus(booking, BookingStatus.REJECTED);
+            return List.of(booking);
+        });
+        bookingIndex.warmUp();
+        assertEquals(true, bookingIndex.isWarm(itemId));
+        assertEquals(true, bookingIndex.isAvailable(itemId, start, end));
+    }
+
+    @Test
+    void updateStatus_before_warmUp_frees_period() {
+        Booking booking = booking(1L, start, end);
+        assertEquals(true, bookingIndex.add(booking));
+        bookingIndex.updateStatus(booking, BookingStatus.CANCELED);
+        when(bookingRepository.findAllByStatusInAndEndGreaterThanEqual(anyList(), any())).thenReturn(List.of());
+        bookingIndex.warmUp();
+        assertEquals(true, bookingIndex.isAvailable(itemId, start, end));
+    }
+
+    @Test
+    void prune_frees_past_periods() {
+        LocalDateTime past = LocalDateTime.now().minusDays(3);
+        Booking ended = booking(1L, past, past.plusDays(1));
+        when(bookingRepository.findAllByStatusInAndEndGreaterThanEqual(anyList(), any()))
+                .thenReturn(List.of(ended));
+        bookingIndex.warmUp();
+        assertEquals(false, bookingIndex.isAvailable(itemId, past, past.plusDays(1)));
+        bookingIndex.prune();
+        assertEquals(true, bookingIndex.isAvailable(itemId, past, past.plusDays(1)));
+        // закончившиеся периоды вещи вычищаются и при добавлении новой брони
+        bookingIndex.updateStatus(ended, BookingStatus.APPROVED);
+        assertEquals(true, bookingIndex.add(booking(2L, start, end)));
+        assertEquals(true, bookingIndex.isAvailable(itemId, past, past.plusDays(1)));
+        assertEquals(false, bookingIndex.isAvailable(itemId, start, end));
+    }
+
+    @Test
+    void warmUp_overlapping_data_marks_item_cold() {
+        when(bookingRepository.findAllByStatusInAndEndGreaterThanEqual(anyList(), any()))
+                .thenReturn(List.of(booking(1L, start, end), booking(2L, start.plusHours(1), end)));
+        bookingIndex.warmUp();
+        assertEquals(false, bookingIndex.isWarm(itemId));
+    }
+
+    @Test
+    void removeBooker_frees_period() {
+        when(bookingRepository.findAllByStatusInAndEndGreaterThanEqual(anyList(), any()))
+                .thenReturn(List.of(booking(1L, start, end)));
+        bookingIndex.warmUp();
+        bookingIndex.removeBooker(booker.getId());
+        assertEquals(true, bookingIndex.isAvailable(itemId, start, end));
+    }
+
+    private Booking booking(long id, LocalDateTime from, LocalDateTime to) {
+        return Booking.builder().id(id).item(item).booker(booker).start(from).end(to)
+                .status(BookingStatus.WAITING).build();
+    }
+}
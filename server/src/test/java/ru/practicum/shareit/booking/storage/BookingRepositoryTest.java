@@ -1,9 +1,13 @@
 package ru.practicum.shareit.booking.storage;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import ru.practicum.shareit.booking.dto.BookingMapper;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
 import ru.practicum.shareit.booking.enums.BookingStatus;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.item.model.Item;
@@ -11,11 +15,17 @@ import ru.practicum.shareit.item.storage.ItemRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.storege.UserRepository;
 
+import javax.persistence.EntityManagerFactory;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 class BookingRepositoryTest {
 
     @Autowired
@@ -26,6 +36,8 @@ class BookingRepositoryTest {
     private ItemRepository itemRepo;
     @Autowired
     private TestEntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
 
     private final LocalDateTime from = LocalDateTime.now().plusDays(1);
     private final LocalDateTime to = LocalDateTime.now().plusDays(10);
@@ -40,12 +52,39 @@ class BookingRepositoryTest {
         User userX = userRepo.save(user);
         Item itemX = itemRepo.save(item);
         Booking bookingX = bookingRepository.save(booking);
-        bookingRepository.updateStatus(1, bookingX.getId(), userX.getId());
+        bookingRepository.updateStatus(1, BookingStatus.CANCELED.ordinal(), bookingX.getId(), userX.getId());
         entityManager.clear();
         BookingStatus state = bookingRepository.findById(bookingX.getId()).get().getStatus();
         assertEquals(1, state.ordinal());
     }
 
+    @Test
+    void insertAll_sets_ids() {
+        User userX = userRepo.save(user);
+        Item itemX = itemRepo.save(item);
+        List<Booking> bookings = List.of(
+                Booking.builder().item(itemX).booker(userX).start(from).end(from.plusDays(1))
+                        .status(BookingStatus.WAITING).build(),
+                Booking.builder().item(itemX).booker(userX).start(to).end(to.plusDays(1))
+                        .status(BookingStatus.WAITING).build());
+        assertTrue(bookingRepository.insertAll(bookings).isEmpty());
+        entityManager.clear();
+        assertTrue(bookingRepository.findById(bookings.get(0).getId()).get().getStart().isBefore(to));
+        assertEquals(itemX.getId(), bookingRepository.findById(bookings.get(1).getId()).get().getItemId());
+        assertNotEquals(bookings.get(0).getId(), bookings.get(1).getId());
+    }
+
+    @Test
+    void updateStatus_stale_status() {
+        User userX = userRepo.save(user);
+        itemRepo.save(item);
+        Booking bookingX = bookingRepository.save(booking);
+        assertEquals(0, bookingRepository.updateStatus(BookingStatus.APPROVED.ordinal(),
+                BookingStatus.WAITING.ordinal(), bookingX.getId(), userX.getId()));
+        entityManager.clear();
+        assertEquals(BookingStatus.CANCELED, bookingRepository.findById(bookingX.getId()).get().getStatus());
+    }
+
     @Test
     void isBookingAvailable() {
         User userX = userRepo.save(user);
@@ -91,6 +130,55 @@ class BookingRepositoryTest {
         );
     }
 
+    @Test
+    void getFromUserByStateAfter() {
+        User owner = userRepo.save(User.builder().email("d").build());
+        User userX = userRepo.save(user);
+        Item itemX = itemRepo.save(Item.builder().owner(owner).build());
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ids.add(bookingRepository.save(Booking
+                    .builder().booker(userX).item(itemX).status(BookingStatus.APPROVED)
+                    .start(from).end(to.plusDays(i % 2))
+                    .build()).getId());
+        }
+        entityManager.getEntityManager().clear();
+        List<Booking> first = bookingRepository.getFromUserByStatePage(owner.getId(), "ALL", true, 0, 2);
+        assertEquals(List.of(ids.get(1), ids.get(2)), List.of(first.get(0).getId(), first.get(1).getId()));
+        Booking last = first.get(1);
+        List<Booking> second = bookingRepository.getFromUserByStateAfter(
+                owner.getId(), "ALL", true, last.getEnd(), last.getId(), 2);
+        assertEquals(1, second.size());
+        assertEquals(ids.get(0), second.get(0).getId());
+    }
+
+    @Test
+    void getFromUserByState_per_state() {
+        User owner = userRepo.save(User.builder().email("d").build());
+        User userX = userRepo.save(user);
+        Item itemX = itemRepo.save(Item.builder().owner(owner).build());
+        LocalDateTime now = LocalDateTime.now();
+        bookingRepository.save(Booking.builder().booker(userX).item(itemX).status(BookingStatus.APPROVED)
+                .start(now.minusDays(10)).end(now.minusDays(5)).build());
+        bookingRepository.save(Booking.builder().booker(userX).item(itemX).status(BookingStatus.APPROVED)
+                .start(now.minusDays(1)).end(now.plusDays(1)).build());
+        bookingRepository.save(Booking.builder().booker(userX).item(itemX).status(BookingStatus.WAITING)
+                .start(now.plusDays(5)).end(now.plusDays(6)).build());
+        bookingRepository.save(Booking.builder().booker(userX).item(itemX).status(BookingStatus.REJECTED)
+                .start(now.plusDays(7)).end(now.plusDays(8)).build());
+        entityManager.getEntityManager().clear();
+        for (boolean ownerOnly : new boolean[]{false, true}) {
+            long userId = ownerOnly ? owner.getId() : userX.getId();
+            assertEquals(4, bookingRepository.getFromUserByState(userId, "ALL", ownerOnly).size());
+            assertEquals(1, bookingRepository.getFromUserByState(userId, "PAST", ownerOnly).size());
+            assertEquals(1, bookingRepository.getFromUserByState(userId, "CURRENT", ownerOnly).size());
+            assertEquals(2, bookingRepository.getFromUserByState(userId, "FUTURE", ownerOnly).size());
+            assertEquals(1, bookingRepository.getFromUserByState(userId, "WAITING", ownerOnly).size());
+            assertEquals(1, bookingRepository.getFromUserByState(userId, "REJECTED", ownerOnly).size());
+        }
+        assertEquals(0, bookingRepository.getFromUserByState(owner.getId(), "ALL", false).size());
+    }
+
     @Test
     void findAllByUserBookings_ok() {
         User owner = userRepo.save(User.builder().email("d").build());
@@ -111,4 +199,150 @@ class BookingRepositoryTest {
         );
     }
 
-}
\ No newline at end of file
+    @Test
+    void getFromUserByState_single_query() {
+        List<User> owners = new ArrayList<>();
+        List<User> bookers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            owners.add(userRepo.save(User.builder().email("owner" + i).name("owner" + i).build()));
+            bookers.add(userRepo.save(User.builder().email("booker" + i).name("booker" + i).build()));
+        }
+        User owner = userRepo.save(User.builder().email("owner").name("owner").build());
+        User booker = userRepo.save(User.builder().email("booker").name("booker").build());
+        for (int i = 0; i < 3; i++) {
+            Item itemX = itemRepo.save(Item.builder().owner(owners.get(i)).name("item" + i).available(true).build());
+            bookingRepository.save(Booking.builder().booker(booker).item(itemX).status(BookingStatus.APPROVED)
+                    .start(from.plusDays(i)).end(to.plusDays(i)).build());
+            Item ownItem = itemRepo.save(Item.builder().owner(owner).name("own" + i).available(true).build());
+            bookingRepository.save(Booking.builder().booker(bookers.get(i)).item(ownItem)
+                    .status(BookingStatus.WAITING).start(from.plusDays(i)).end(to.plusDays(i)).build());
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        List<List<Booking>> lists = new ArrayList<>();
+        entityManager.getEntityManager().clear();
+        statistics.clear();
+        lists.add(bookingRepository.getFromUserByState(booker.getId(), "ALL", false));
+        lists.add(bookingRepository.getFromUserByStatePage(owner.getId(), "ALL", true, 0, 3));
+        lists.add(bookingRepository.getFromUserByStateAfter(owner.getId(), "ALL", true, to.plusDays(5), 0, 3));
+        lists.forEach(list -> list.forEach(BookingMapper::toResponseDto));
+        assertEquals(3, statistics.getPrepareStatementCount());
+        lists.forEach(list -> assertEquals(3, list.size()));
+        assertEquals(List.of("item2", "item1", "item0"), lists.get(0).stream()
+                .map(b -> b.getItem().getName()).collect(Collectors.toList()));
+        assertEquals(List.of("owner2", "owner1", "owner0"), lists.get(0).stream()
+                .map(b -> b.getItem().getOwner().getName()).collect(Collectors.toList()));
+        assertEquals(List.of("booker2", "booker1", "booker0"), lists.get(1).stream()
+                .map(b -> b.getBooker().getName()).collect(Collectors.toList()));
+
+        entityManager.getEntityManager().clear();
+        statistics.clear();
+        Booking single = bookingRepository.findById(lists.get(0).get(0).getId()).get();
+        BookingMapper.toResponseDto(single);
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        List<Item> items = lists.get(1).stream().map(Booking::getItem).collect(Collectors.toList());
+        entityManager.getEntityManager().clear();
+        statistics.clear();
+        List<Booking> byItems = bookingRepository.findAllByItemInAndStatusOrderByStartAsc(items, BookingStatus.WAITING);
+        byItems.forEach(BookingMapper::toResponseDto);
+        assertEquals(3, byItems.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getDtoFromUserByState_ok() {
+        User owner = userRepo.save(User.builder().email("d").name("owner").build());
+        User userX = userRepo.save(user);
+        Item itemX = itemRepo.save(Item.builder().owner(owner).name("item").available(true).build());
+        Booking past = bookingRepository.save(Booking.builder().booker(userX).item(itemX)
+                .status(BookingStatus.APPROVED).start(from.minusDays(100)).end(to.minusDays(90)).build());
+        Booking future = bookingRepository.save(Booking.builder().booker(userX).item(itemX)
+                .status(BookingStatus.WAITING).start(from).end(to).build());
+        entityManager.getEntityManager().clear();
+
+        List<BookingResponseDto> all = bookingRepository.getDtoFromUserByState(owner.getId(), "ALL", true);
+        List<BookingResponseDto> expected = bookingRepository.getFromUserByState(owner.getId(), "ALL", true)
+                .stream()
+                .map(BookingMapper::toResponseDto)
+                .collect(Collectors.toList());
+        assertEquals(expected, all);
+        assertEquals(List.of(future.getId(), past.getId()), List.of(all.get(0).getId(), all.get(1).getId()));
+        assertEquals(1, bookingRepository.getDtoFromUserByState(userX.getId(), "WAITING", false).size());
+        assertEquals(past.getId(),
+                bookingRepository.getDtoFromUserByStatePage(userX.getId(), "ALL", false, 1, 1).get(0).getId());
+    }
+
+    @Test
+    void getLastAndNextByItemIds_ok() {
+        User owner = userRepo.save(User.builder().email("d").name("owner").build());
+        User userX = userRepo.save(user);
+        LocalDateTime now = LocalDateTime.now();
+        Item first = itemRepo.save(Item.builder().owner(owner).name("first").available(true).build());
+        Item second = itemRepo.save(Item.builder().owner(owner).name("second").available(true).build());
+        bookingRepository.save(Booking.builder().booker(userX).item(first).status(BookingStatus.APPROVED)
+                .start(now.minusDays(20)).end(now.minusDays(19)).build());
+        Booking last = bookingRepository.save(Booking.builder().booker(userX).item(first)
+                .status(BookingStatus.APPROVED).start(now.minusDays(2)).end(now.plusDays(1)).build());
+        bookingRepository.save(Booking.builder().booker(userX).item(first).status(BookingStatus.REJECTED)
+                .start(now.minusDays(1)).end(now.plusDays(2)).build());
+        Booking next = bookingRepository.save(Booking.builder().booker(userX).item(first)
+                .status(BookingStatus.APPROVED).start(now.plusDays(3)).end(now.plusDays(4)).build());
+        bookingRepository.save(Booking.builder().booker(userX).item(first).status(BookingStatus.APPROVED)
+                .start(now.plusDays(5)).end(now.plusDays(6)).build());
+        Booking onlyNext = bookingRepository.save(Booking.builder().booker(userX).item(second)
+                .status(BookingStatus.APPROVED).start(now.plusDays(1)).end(now.plusDays(2)).build());
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        entityManager.getEntityManager().clear();
+        statistics.clear();
+
+        List<Booking> found = bookingRepository.getLastAndNextByItemIds(List.of(first.getId(), second.getId()), now);
+        found.forEach(BookingMapper::toResponseDto);
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(List.of(last.getId(), next.getId(), onlyNext.getId()), found.stream()
+                .map(Booking::getId).sorted().collect(Collectors.toList()));
+        assertEquals(0, bookingRepository.getLastAndNextByItemIds(List.of(), now).size());
+    }
+
+    @Test
+    void getLastPrevAndFirstNextByItemId_ties() {
+        User owner = userRepo.save(User.builder().email("d").name("owner").build());
+        User userX = userRepo.save(user);
+        LocalDateTime now = LocalDateTime.now();
+        Item itemX = itemRepo.save(Item.builder().owner(owner).name("item").available(true).build());
+        bookingRepository.save(Booking.builder().booker(userX).item(itemX).status(BookingStatus.APPROVED)
+                .start(now.minusDays(5)).end(now.minusDays(1)).build());
+        Booking last = bookingRepository.save(Booking.builder().booker(userX).item(itemX)
+                .status(BookingStatus.APPROVED).start(now.minusDays(3)).end(now.minusDays(1)).build());
+        Booking next = bookingRepository.save(Booking.builder().booker(userX).item(itemX)
+                .status(BookingStatus.APPROVED).start(now.plusDays(1)).end(now.plusDays(2)).build());
+        bookingRepository.save(Booking.builder().booker(userX).item(itemX).status(BookingStatus.APPROVED)
+                .start(now.plusDays(1)).end(now.plusDays(3)).build());
+        bookingRepository.save(Booking.builder().booker(userX).item(itemX).status(BookingStatus.WAITING)
+                .start(now.plusHours(1)).end(now.plusHours(2)).build());
+        entityManager.getEntityManager().clear();
+
+        assertEquals(last.getId(), bookingRepository.getLastPrevByItemId(itemX.getId(), now).get().getId());
+        assertEquals(next.getId(), bookingRepository.getFirstNextByItemId(itemX.getId(), now).get().getId());
+        assertEquals(true, bookingRepository.getFirstNextByItemId(itemX.getId(), now.plusDays(2)).isEmpty());
+        assertEquals(true, bookingRepository.getLastPrevByItemId(itemX.getId(), now.minusDays(10)).isEmpty());
+    }
+
+    @Test
+    void findVersionTag() {
+        User owner = userRepo.save(User.builder().email("owner@mm.eee").build());
+        User booker = userRepo.save(user);
+        Item itemX = itemRepo.save(Item.builder().owner(owner).name("ff").available(true).build());
+        Booking bookingX = bookingRepository.save(Booking.builder().booker(booker).item(itemX)
+                .start(from).end(to).status(BookingStatus.WAITING).build());
+
+        String waiting = bookingRepository.findVersionTag(bookingX.getId(), booker.getId()).orElseThrow();
+        assertEquals(waiting, bookingRepository.findVersionTag(bookingX.getId(), owner.getId()).orElseThrow());
+        bookingRepository.updateStatus(BookingStatus.APPROVED.ordinal(),
+                BookingStatus.WAITING.ordinal(), bookingX.getId(), owner.getId());
+        assertNotEquals(waiting, bookingRepository.findVersionTag(bookingX.getId(), booker.getId()).orElseThrow());
+        // чужому пользователю тега нет - 403/404 отдаст сервис
+        User stranger = userRepo.save(User.builder().email("stranger@mm.eee").build());
+        assertTrue(bookingRepository.findVersionTag(bookingX.getId(), stranger.getId()).isEmpty());
+    }
+}
@@ -0,0 +1,77 @@
+package ru.practicum.shareit.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storege.UserRepository;
+
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Без общей транзакции теста: сущности, вставленные в текущей транзакции, Hibernate в кэш не кладет
+@DataJpaTest
+@Import(EntityCacheConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class EntityCacheConfigTest {
+    @Autowired
+    private UserRepository userRepo;
+    @Autowired
+    private ItemRepository itemRepo;
+    @Autowired
+    private BookingRepository bookingRepo;
+    @Autowired
+    private TransactionTemplate transaction;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void partialUpdate_evicts_user() {
+        Cache cache = entityManagerFactory.getCache();
+        long id = userRepo.save(User.builder().email("user@a.a").name("a").build()).getId();
+        userRepo.findById(id);
+        assertTrue(cache.contains(User.class, id));
+
+        transaction.executeWithoutResult(status -> userRepo.partialUpdate("renamed@a.a", null, id));
+        assertFalse(cache.contains(User.class, id));
+        assertEquals("renamed@a.a", userRepo.findById(id).get().getEmail());
+    }
+
+    @Test
+    void partialUpdate_evicts_only_items() {
+        Cache cache = entityManagerFactory.getCache();
+        User owner = userRepo.save(User.builder().email("owner@a.a").name("owner").build());
+        User booker = userRepo.save(User.builder().email("booker@a.a").name("booker").build());
+        Item item = itemRepo.save(Item.builder().owner(owner).name("item").available(true).build());
+        Booking booking = bookingRepo.save(Booking.builder().item(item).booker(booker)
+                .start(LocalDateTime.now().plusDays(1)).end(LocalDateTime.now().plusDays(2))
+                .status(BookingStatus.WAITING).build());
+        itemRepo.findById(item.getId());
+        assertTrue(cache.contains(Item.class, item.getId()));
+        assertTrue(cache.contains(User.class, owner.getId()));
+
+        transaction.executeWithoutResult(status ->
+                bookingRepo.updateStatus(BookingStatus.APPROVED.ordinal(),
+                        BookingStatus.WAITING.ordinal(), booking.getId(), owner.getId()));
+        assertTrue(cache.contains(Item.class, item.getId()));
+
+        itemRepo.partialUpdate("renamed", null, null, item.getId(), owner.getId());
+        assertFalse(cache.contains(Item.class, item.getId()));
+        assertTrue(cache.contains(User.class, owner.getId()));
+        assertEquals("renamed", itemRepo.findById(item.getId()).get().getName());
+    }
+}
@@ -0,0 +1,66 @@
+package ru.practicum.shareit.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.error.exceptions.NoContentException;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.user.storege.UserRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+class MethodMetricsAspectTest {
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private MeterRegistry registry;
+
+    // Контекст общий с другими тестами, поэтому сравниваются приращения
+    @Test
+    void service_exception_counted_by_type() {
+        long before = failedGetUserById().map(Timer::count).orElse(0L);
+        assertThrows(NoContentException.class, () -> userService.getUserById(-1L));
+
+        assertEquals(before + 1, failedGetUserById().map(Timer::count).orElse(0L));
+        // Вложенный вызов репозитория считается отдельно и прошел без ошибки
+        assertNotNull(registry.find(MethodMetricsAspect.TIMER)
+                .tags("layer", "repository", "class", "UserRepository", "method", "findById", "exception", "none")
+                .timer());
+    }
+
+    @Test
+    @Transactional
+    void repository_rows_recorded() {
+        userRepository.save(User.builder().email("metrics@mail.ru").name("metrics").build());
+        double before = findAllRows().map(DistributionSummary::totalAmount).orElse(0.0);
+        List<User> users = userRepository.findAll();
+
+        assertEquals(before + users.size(), findAllRows().map(DistributionSummary::totalAmount).orElse(0.0));
+    }
+
+    private Optional<Timer> failedGetUserById() {
+        return Optional.ofNullable(registry.find(MethodMetricsAspect.TIMER)
+                .tags("layer", "service", "class", "UserServiceImpl", "method", "getUserById",
+                        "exception", "NoContentException")
+                .timer());
+    }
+
+    private Optional<DistributionSummary> findAllRows() {
+        return Optional.ofNullable(registry.find(MethodMetricsAspect.ROWS)
+                .tags("layer", "repository", "class", "UserRepository", "method", "findAll")
+                .summary());
+    }
+}
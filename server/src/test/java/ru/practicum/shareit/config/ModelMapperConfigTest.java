@@ -0,0 +1,101 @@
+package ru.practicum.shareit.config;
+
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+import ru.practicum.shareit.booking.dto.BookingRequestDto;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.comment.dto.ItemCommentRequestDto;
+import ru.practicum.shareit.item.comment.dto.ItemCommentResponseDto;
+import ru.practicum.shareit.item.comment.model.ItemComment;
+import ru.practicum.shareit.item.dto.ItemRequestDto;
+import ru.practicum.shareit.item.dto.ItemResponseDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.dto.RequestItemRequestDto;
+import ru.practicum.shareit.request.dto.RequestItemResponseDto;
+import ru.practicum.shareit.request.model.RequestItem;
+import ru.practicum.shareit.user.dto.UserRequestDto;
+import ru.practicum.shareit.user.dto.UserResponseDto;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ModelMapperConfigTest {
+    private final ModelMapper reflective = new ModelMapperConfig().modelMapper("reflective");
+    private final ModelMapper direct = new ModelMapperConfig().modelMapper("direct");
+
+    private final LocalDateTime now = LocalDateTime.of(2024, 1, 2, 3, 4, 5, 6000);
+    private final User owner = User.builder().id(1L).name("owner").email("owner@mail.ru").build();
+    private final User booker = User.builder().id(2L).name("booker").email("booker@mail.ru").build();
+    private final Item item = Item.builder().id(3L).owner(owner).name("item").description("descr")
+            .available(true).requestId(4L).build();
+    private final Booking booking = Booking.builder().id(5L).item(item).booker(booker)
+            .start(now).end(now.plusDays(1)).status(BookingStatus.APPROVED).build();
+    private final ItemComment comment = ItemComment.builder().id(6L).text("text").item(item).author(booker)
+            .created(now).build();
+
+    private <D> void assertSame(Object source, Class<D> destinationType) {
+        assertEquals(reflective.map(source, destinationType), direct.map(source, destinationType));
+    }
+
+    @Test
+    void directMapper_ok() {
+        assertTrue(direct instanceof DirectModelMapper);
+    }
+
+    @Test
+    void user_ok() {
+        assertSame(owner, UserResponseDto.class);
+        assertSame(UserRequestDto.builder().id(1L).name("name").email("mail@mail.ru").build(), User.class);
+        assertSame(UserRequestDto.builder().name("name").build(), User.class);
+    }
+
+    @Test
+    void item_ok() {
+        assertSame(item, ItemResponseDto.class);
+        assertSame(Item.builder().id(3L).name("item").build(), ItemResponseDto.class);
+        Item withBookings = Item.builder().id(3L).owner(owner).name("item")
+                .lastBooking(reflective.map(booking, BookingResponseDto.class))
+                .comments(List.of(reflective.map(comment, ItemCommentResponseDto.class)))
+                .build();
+        assertSame(withBookings, ItemResponseDto.class);
+        assertSame(ItemRequestDto.builder().id(3L).owner(1L).name("item").description("descr")
+                .available(false).requestId(4L).build(), Item.class);
+    }
+
+    @Test
+    void booking_ok() {
+        assertSame(booking, BookingResponseDto.class);
+        assertSame(Booking.builder().id(5L).item(item).build(), BookingResponseDto.class);
+        BookingRequestDto requestDto = BookingRequestDto.builder().id(5L).itemId(3L).booker(2L)
+                .start(now).end(now.plusDays(1)).status(BookingStatus.WAITING).build();
+        Booking mapped = direct.map(requestDto, Booking.class);
+        Booking expected = reflective.map(requestDto, Booking.class);
+        assertEquals(expected.getId(), mapped.getId());
+        assertEquals(expected.getStart(), mapped.getStart());
+        assertEquals(expected.getEnd(), mapped.getEnd());
+        assertEquals(expected.getStatus(), mapped.getStatus());
+        assertEquals(expected.getItemId(), mapped.getItemId());
+        assertNull(mapped.getBooker());
+    }
+
+    @Test
+    void comment_ok() {
+        assertSame(comment, ItemCommentResponseDto.class);
+        assertSame(ItemCommentRequestDto.builder().text("text").build(), ItemComment.class);
+    }
+
+    @Test
+    void request_ok() {
+        assertSame(RequestItem.builder().id(7L).description("need").requester(owner).created(now)
+                .items(List.of(item)).build(), RequestItemResponseDto.class);
+        assertSame(RequestItem.builder().id(7L).requester(owner).build(), RequestItemResponseDto.class);
+        assertSame(RequestItemRequestDto.builder().description("need").build(), RequestItem.class);
+    }
+}
@@ -0,0 +1,52 @@
+package ru.practicum.shareit.invalidation;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.practicum.shareit.user.dto.UserRequestDto;
+import ru.practicum.shareit.user.dto.UserResponseDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class InvalidationControllerTest {
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private UserService userService;
+
+    @Test
+    @SneakyThrows
+    void subscriber_receives_event_after_commit() {
+        MvcResult subscription = mvc.perform(get("/invalidations"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MockHttpServletResponse stream = subscription.getResponse();
+        awaitContent(stream, "event:CONNECTED");
+
+        UserResponseDto user = userService.createUser(UserRequestDto.builder()
+                .name("invalidation")
+                .email("invalidation@mail.ru")
+                .build());
+        awaitContent(stream, "event:USER\ndata:" + user.getId());
+        userService.delete(user.getId());
+    }
+
+    // события отправляет отдельный поток
+    @SneakyThrows
+    private static void awaitContent(MockHttpServletResponse stream, String expected) {
+        for (int i = 0; i < 50 && !stream.getContentAsString().contains(expected); i++) {
+            Thread.sleep(100);
+        }
+        assertTrue(stream.getContentAsString().contains(expected), stream.getContentAsString());
+    }
+}
@@ -9,9 +9,11 @@ import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.invalidation.InvalidationBroadcaster;
 import ru.practicum.shareit.item.comment.dto.ItemCommentRequestDto;
 import ru.practicum.shareit.item.comment.dto.ItemCommentResponseDto;
 import ru.practicum.shareit.item.comment.model.ItemComment;
@@ -28,9 +30,11 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest
@@ -47,6 +51,8 @@ class ItemControllerTest {
     private RequestService requestService;
     @MockBean
     private UserService userService;
+    @MockBean
+    private InvalidationBroadcaster invalidationBroadcaster;
 
     private final ObjectMapper mapper = new ObjectMapper();
 
@@ -60,6 +66,30 @@ class ItemControllerTest {
         verify(itemService).getItemDtoById(id, id);
     }
 
+    @Test
+    @SneakyThrows
+    void getItem_not_modified() {
+        when(itemService.getItemETag(id, id)).thenReturn(Optional.of("v1"));
+        mvc.perform(get("/items/1")
+                        .header("X-Sharer-User-Id", id)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"v1\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"v1\""));
+        verify(itemService, never()).getItemDtoById(id, id);
+    }
+
+    @Test
+    @SneakyThrows
+    void getItem_changed() {
+        when(itemService.getItemETag(id, id)).thenReturn(Optional.of("v2"));
+        mvc.perform(get("/items/1")
+                        .header("X-Sharer-User-Id", id)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"v1\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"v2\""));
+        verify(itemService).getItemDtoById(id, id);
+    }
+
     @Test
     @SneakyThrows
     void create_null_err() {
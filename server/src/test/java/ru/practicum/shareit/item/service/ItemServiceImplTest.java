@@ -7,26 +7,34 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.modelmapper.ModelMapper;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
 import ru.practicum.shareit.booking.dto.BookingShortResponseDto;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.storage.BookingIntervalIndex;
 import ru.practicum.shareit.booking.storage.BookingRepository;
 import ru.practicum.shareit.error.exceptions.BadRequestException;
 import ru.practicum.shareit.error.exceptions.NoContentException;
+import ru.practicum.shareit.invalidation.InvalidationEvent;
 import ru.practicum.shareit.item.comment.dto.ItemCommentRequestDto;
 import ru.practicum.shareit.item.comment.dto.ItemCommentResponseDto;
 import ru.practicum.shareit.item.comment.model.ItemComment;
 import ru.practicum.shareit.item.comment.storage.CommentRepository;
+import ru.practicum.shareit.item.dto.ItemMapper;
 import ru.practicum.shareit.item.dto.ItemRequestDto;
 import ru.practicum.shareit.item.dto.ItemResponseDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.item.storage.ItemSearchIndex;
 import ru.practicum.shareit.request.storage.RequestRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
 
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -34,10 +42,14 @@ import java.util.Optional;
 
 import static java.time.LocalDateTime.now;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
-import static ru.practicum.shareit.booking.enums.BookingStatus.APPROVED;
 
 @ExtendWith(MockitoExtension.class)
 class ItemServiceImplTest {
@@ -52,7 +64,17 @@ class ItemServiceImplTest {
     @Mock
     private BookingRepository bookingRepository;
     @Mock
+    private BookingIntervalIndex bookingIndex;
+    @Mock
+    private ItemSearchIndex itemSearchIndex;
+    @Mock
     private RequestRepository requestRepository;
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+    @Mock
+    private Cache cache;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
     @InjectMocks
     private ItemServiceImpl itemService;
 
@@ -133,8 +155,11 @@ class ItemServiceImplTest {
         when(itemRepository.partialUpdate(null, null, true, 1L, 1L))
                 .thenReturn(1);
         when(itemRepository.findById(id)).thenReturn(Optional.of(itemModel));
+        when(entityManagerFactory.getCache()).thenReturn(cache);
         ItemResponseDto updated = itemService.updateItem(id, id, itemRequestDto);
         assertEquals(itemResponseDto, updated);
+        verify(cache).evict(Item.class, id);
+        verify(eventPublisher).publishEvent(InvalidationEvent.item(id));
     }
 
     @Test
@@ -173,7 +198,7 @@ class ItemServiceImplTest {
         ItemCommentResponseDto itemCommentResponseDto = ItemCommentResponseDto.builder().id(1L).itemId(1L).build();
         when(itemRepository.findAllByOwner(
                         userService.getUserById(1L),
-                        PageRequest.of(1, 1, Sort.by("created").descending())
+                        PageRequest.of(1, 1, Sort.by("id"))
                 )
         ).thenReturn(itemsList);
         when(commentRepository.findAllByItemIdIn(List.of(1L)))
@@ -188,13 +213,45 @@ class ItemServiceImplTest {
                 .build();
         List<Booking> bookingList = new ArrayList<>();
         bookingList.add(booking);
-        when(bookingRepository.findAllByItemInAndStatusOrderByStartAsc(itemsList, APPROVED))
+        when(bookingRepository.getLastAndNextByItemIds(eq(List.of(1L)), any(LocalDateTime.class)))
                 .thenReturn(bookingList);
         assertEquals(1,
                 itemService.getAllUserItems(1L, Optional.of(1), Optional.of(1)).size()
         );
     }
 
+    @Test
+    @SneakyThrows
+    void getAllUserItems_projection_ok() {
+        ReflectionTestUtils.setField(itemService, "readMode", "projection");
+        ItemResponseDto itemDto = new ItemResponseDto(1L, 2L, "name", "description", true, null);
+        Item item = Item.builder().id(1L).build();
+        LocalDateTime now = now();
+        Booking last = Booking.builder().id(10L).item(item).start(now.minusDays(2)).end(now.minusDays(1)).build();
+        Booking next = Booking.builder().id(11L).item(item).start(now.plusDays(1)).end(now.plusDays(2)).build();
+        when(itemRepository.findResponseDtoByOwnerId(1L)).thenReturn(List.of(itemDto));
+        when(bookingRepository.getLastAndNextByItemIds(eq(List.of(1L)), any(LocalDateTime.class)))
+                .thenReturn(List.of(last, next));
+        when(modelMapper.map(last, BookingResponseDto.class)).thenReturn(BookingResponseDto.builder().id(10L).build());
+        when(modelMapper.map(next, BookingResponseDto.class)).thenReturn(BookingResponseDto.builder().id(11L).build());
+        List<ItemResponseDto> ret = itemService.getAllUserItems(1L, Optional.empty(), Optional.empty());
+        assertEquals(1, ret.size());
+        assertEquals(10L, ret.get(0).getLastBooking().getId());
+        assertEquals(11L, ret.get(0).getNextBooking().getId());
+        verify(itemRepository, never()).findAllByOwnerOrderByIdAsc(any());
+    }
+
+    @Test
+    @SneakyThrows
+    void searchItemByName_projection_ok() {
+        ReflectionTestUtils.setField(itemService, "readMode", "projection");
+        ItemResponseDto itemDto = new ItemResponseDto(1L, 2L, "srch", "description", true, null);
+        when(itemRepository.findUserItemLikeDtoPage("srch", 1, 1)).thenReturn(List.of(itemDto));
+        List<ItemResponseDto> ret = itemService.searchItemByName(id, "srch", Optional.of(1), Optional.of(1));
+        assertEquals(List.of(itemDto), ret);
+        verify(modelMapper, never()).map(any(), eq(ItemResponseDto.class));
+    }
+
     @Test
     @SneakyThrows
     void searchItemByName_no_text() {
@@ -224,6 +281,31 @@ class ItemServiceImplTest {
         assertEquals(1, ret.size());
     }
 
+    @Test
+    @SneakyThrows
+    void searchItemByName_index_ok() {
+        Item first = Item.builder().id(1L).build();
+        Item second = Item.builder().id(2L).build();
+        when(itemSearchIndex.isWarm()).thenReturn(true);
+        when(itemSearchIndex.search("srch")).thenReturn(List.of(1L, 2L, 3L));
+        when(itemRepository.findAllById(List.of(2L))).thenReturn(List.of(second));
+        when(modelMapper.map(second, ItemResponseDto.class)).thenReturn(ItemResponseDto.builder().id(2L).build());
+        List<ItemResponseDto> ret = itemService.searchItemByName(id, "srch", Optional.of(1), Optional.of(1));
+        assertEquals(2L, ret.get(0).getId());
+        verify(itemRepository, never()).findUserItemLikePage("srch", "srch", 1, 1);
+    }
+
+    @Test
+    @SneakyThrows
+    void searchItemByName_fulltext_ok() {
+        ReflectionTestUtils.setField(itemService, "searchMode", "fulltext");
+        ArrayList<Item> itemsList = new ArrayList<>();
+        itemsList.add(new Item());
+        when(itemRepository.findUserItemFullText("srch")).thenReturn(itemsList);
+        List<ItemResponseDto> ret = itemService.searchItemByName(id, "srch", Optional.empty(), Optional.empty());
+        assertEquals(1, ret.size());
+    }
+
     @Test
     @SneakyThrows
     void getItemById_err() {
@@ -262,6 +344,23 @@ class ItemServiceImplTest {
         assertEquals(true, itemService.getItemDtoById(id, id).getAvailable());
     }
 
+    @Test
+    @SneakyThrows
+    void getItemDtoById_owner_bookings_ok() {
+        Item item = Item.builder().id(id).owner(user).available(true).build();
+        Booking last = Booking.builder().id(10L).item(item).build();
+        BookingResponseDto lastDto = BookingResponseDto.builder().id(10L).build();
+        when(itemRepository.findById(id)).thenReturn(Optional.of(item));
+        when(bookingRepository.getLastPrevByItemId(eq(id), any(LocalDateTime.class))).thenReturn(Optional.of(last));
+        when(bookingRepository.getFirstNextByItemId(eq(id), any(LocalDateTime.class))).thenReturn(Optional.empty());
+        when(modelMapper.map(last, BookingResponseDto.class)).thenReturn(lastDto);
+        when(modelMapper.map(item, ItemResponseDto.class))
+                .thenAnswer(inv -> ItemMapper.toResponseDto(inv.getArgument(0)));
+        ItemResponseDto ret = itemService.getItemDtoById(id, user.getId());
+        assertEquals(10L, ret.getLastBooking().getId());
+        assertNull(ret.getNextBooking());
+    }
+
     @Test
     @SneakyThrows
     void deleteItem_ok() {
@@ -282,4 +381,11 @@ class ItemServiceImplTest {
         itemService.getAllByRequestIdNotNull();
     }
 
-}
\ No newline at end of file
+    @Test
+    @SneakyThrows
+    void getAllByRequestIdIn() {
+        when(itemRepository.findAllByRequestIdIn(List.of(id))).thenReturn(new ArrayList<Item>());
+        itemService.getAllByRequestIdIn(List.of(id));
+    }
+
+}
@@ -0,0 +1,77 @@
+package ru.practicum.shareit.item.service;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.item.comment.model.ItemComment;
+import ru.practicum.shareit.item.comment.storage.CommentRepository;
+import ru.practicum.shareit.item.dto.ItemResponseDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storege.UserRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+// Тестовый application.properties по умолчанию читает через сущности; здесь - путь по умолчанию в работе
+@SpringBootTest(properties = "shareit.read.mode=projection")
+class ItemServiceProjectionTest {
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+
+    private User owner;
+    private User author;
+
+    // Строки коммитятся в общую базу @SpringBootTest - убираем за собой
+    @AfterEach
+    void cleanUp() {
+        if (owner != null) {
+            List<Item> items = itemRepository.findAllByOwnerOrderByIdAsc(owner);
+            items.forEach(item -> commentRepository.deleteAll(commentRepository.findAllByItemId(item.getId())));
+            itemRepository.deleteAll(items);
+            userRepository.delete(owner);
+        }
+        if (author != null) {
+            userRepository.delete(author);
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void getAllUserItems_with_comments_ok() {
+        owner = userRepository.save(User.builder().email("projection-owner@mail.ru").name("owner").build());
+        author = userRepository.save(User.builder().email("projection-author@mail.ru").name("author").build());
+        Item drill = itemRepository.save(Item.builder().owner(owner).name("drill").available(true).build());
+        Item ladder = itemRepository.save(Item.builder().owner(owner).name("ladder").available(true).build());
+        commentRepository.save(ItemComment.builder().item(drill).author(author).text("good").build());
+        commentRepository.save(ItemComment.builder().item(drill).author(author).text("loud").build());
+
+        List<ItemResponseDto> all = itemService.getAllUserItems(owner.getId(), Optional.empty(), Optional.empty());
+        assertEquals(2, all.size());
+        assertEquals(drill.getId(), all.get(0).getId());
+        assertEquals(2, all.get(0).getComments().size());
+        assertEquals("author", all.get(0).getComments().get(0).getAuthorName());
+        assertNull(all.get(1).getComments());
+
+        List<ItemResponseDto> page = itemService.getAllUserItems(owner.getId(), Optional.of(0), Optional.of(1));
+        assertEquals(1, page.size());
+        assertEquals(drill.getId(), page.get(0).getId());
+        assertEquals(2, page.get(0).getComments().size());
+
+        List<ItemResponseDto> second = itemService.getAllUserItems(owner.getId(), Optional.of(1), Optional.of(1));
+        assertEquals(1, second.size());
+        assertEquals(ladder.getId(), second.get(0).getId());
+    }
+}
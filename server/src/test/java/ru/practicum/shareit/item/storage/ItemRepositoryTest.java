@@ -1,19 +1,29 @@
 package ru.practicum.shareit.item.storage;
 
+import org.hibernate.Session;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.item.comment.model.ItemComment;
+import ru.practicum.shareit.item.comment.storage.CommentRepository;
+import ru.practicum.shareit.item.dto.ItemResponseDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.storege.UserRepository;
 
 import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @DataJpaTest
 class ItemRepositoryTest {
@@ -22,6 +32,10 @@ class ItemRepositoryTest {
     @Autowired
     private UserRepository userRepo;
     @Autowired
+    private CommentRepository commentRepo;
+    @Autowired
+    private BookingRepository bookingRepo;
+    @Autowired
     private EntityManager entityManager;
 
     private Item item1Value;
@@ -81,4 +95,69 @@ class ItemRepositoryTest {
         List waitOut = List.of(item1Value, item2Value);
         assertEquals(0, itemRepo.findUserItemLikePage("x", "b", 1, 1).size());
     }
-}
\ No newline at end of file
+
+    @Test
+    void findAllByRequestIdIn_ok() {
+        User owner = item1Value.getOwner();
+        itemRepo.save(Item.builder().name("r1").available(true).owner(owner).requestId(10L).build());
+        itemRepo.save(Item.builder().name("r2").available(true).owner(owner).requestId(20L).build());
+        itemRepo.save(Item.builder().name("r3").available(true).owner(owner).requestId(30L).build());
+        assertEquals(2, itemRepo.findAllByRequestIdIn(List.of(10L, 30L)).size());
+    }
+
+    @Test
+    void findUserItemLikeDto_ok() {
+        entityManager.clear();
+        List<ItemResponseDto> items = itemRepo.findUserItemLikeDto("m");
+        assertEquals(1, items.size());
+        assertEquals(item1Value.getId(), items.get(0).getId());
+        assertEquals(item1Value.getOwner().getId(), items.get(0).getOwner());
+        assertEquals(1, itemRepo.findUserItemLikeDtoPage("a", 0, 1).size());
+        assertEquals(0, entityManager.unwrap(Session.class).getStatistics().getEntityCount());
+    }
+
+    @Test
+    void findResponseDtoByOwnerId_ok() {
+        long ownerId = item1Value.getOwner().getId();
+        entityManager.clear();
+        List<ItemResponseDto> items = itemRepo.findResponseDtoByOwnerId(ownerId);
+        assertEquals(List.of(item1Value.getId(), item2Value.getId()),
+                List.of(items.get(0).getId(), items.get(1).getId()));
+        assertEquals("aaa", items.get(1).getDescription());
+        assertEquals(1, itemRepo.findResponseDtoByIdIn(List.of(item2Value.getId())).size());
+        assertEquals(0, entityManager.unwrap(Session.class).getStatistics().getEntityCount());
+    }
+
+    @Test
+    void findVersionTag_changes_with_item_comments_and_bookings() {
+        long itemId = item1Value.getId();
+        long ownerId = item1Value.getOwner().getId();
+        User booker = userRepo.save(User.builder().email("booker@rr.rr").name("booker").build());
+        LocalDateTime now = LocalDateTime.now();
+        String initial = itemRepo.findVersionTag(itemId, ownerId, now).orElseThrow();
+        // владелец видит бронирования, остальные - нет
+        assertNotEquals(initial, itemRepo.findVersionTag(itemId, booker.getId(), now).orElseThrow());
+
+        itemRepo.partialUpdate("renamed", null, null, itemId, ownerId);
+        String renamed = itemRepo.findVersionTag(itemId, ownerId, now).orElseThrow();
+        assertNotEquals(initial, renamed);
+
+        commentRepo.save(ItemComment.builder().item(item1Value).author(booker).text("ok").build());
+        String commented = itemRepo.findVersionTag(itemId, ownerId, now).orElseThrow();
+        assertNotEquals(renamed, commented);
+
+        userRepo.partialUpdate(null, "new name", booker.getId());
+        String authorRenamed = itemRepo.findVersionTag(itemId, ownerId, now).orElseThrow();
+        assertNotEquals(commented, authorRenamed);
+
+        bookingRepo.save(Booking.builder().item(item1Value).booker(booker)
+                .start(now.plusDays(1)).end(now.plusDays(2)).status(BookingStatus.APPROVED).build());
+        String booked = itemRepo.findVersionTag(itemId, ownerId, now).orElseThrow();
+        assertNotEquals(authorRenamed, booked);
+        assertEquals(booked, itemRepo.findVersionTag(itemId, ownerId, now).orElseThrow());
+        // началось следующее бронирование - оно стало последним, ответ для владельца другой
+        assertNotEquals(booked, itemRepo.findVersionTag(itemId, ownerId, now.plusDays(1).plusHours(1)).orElseThrow());
+
+        assertTrue(itemRepo.findVersionTag(-1L, ownerId, now).isEmpty());
+    }
+}
@@ -0,0 +1,106 @@
+package ru.practicum.shareit.item.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ItemSearchIndexTest {
+    @Mock
+    private ItemRepository itemRepository;
+    @InjectMocks
+    private ItemSearchIndex itemSearchIndex;
+
+    private final User owner = User.builder().id(1L).build();
+    private final User otherOwner = User.builder().id(2L).build();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(itemSearchIndex, "mode", "index");
+    }
+
+    @Test
+    void warmUp_disabled() {
+        ReflectionTestUtils.setField(itemSearchIndex, "mode", "like");
+        itemSearchIndex.warmUp();
+        assertEquals(false, itemSearchIndex.isWarm());
+        verifyNoInteractions(itemRepository);
+    }
+
+    @Test
+    void search_ok() {
+        when(itemRepository.findAll()).thenReturn(List.of(
+                item(3L, owner, "Дрель", "Ударная дрель", true),
+                item(1L, owner, "Отвертка", "Аккумуляторная дрель-шуруповерт", true),
+                item(2L, otherOwner, "Дрель", "Сломана", false)));
+        itemSearchIndex.warmUp();
+        assertEquals(true, itemSearchIndex.isWarm());
+        assertEquals(List.of(1L, 3L), itemSearchIndex.search("дРеЛь"));
+        assertEquals(List.of(1L), itemSearchIndex.search("отв"));
+        assertEquals(List.of(), itemSearchIndex.search("пила"));
+    }
+
+    @Test
+    void search_short_text_ok() {
+        when(itemRepository.findAll()).thenReturn(List.of(
+                item(1L, owner, "Дрель", "Ударная", true),
+                item(2L, owner, "Пила", "Ручная", true)));
+        itemSearchIndex.warmUp();
+        assertEquals(List.of(1L), itemSearchIndex.search("ль"));
+        assertEquals(List.of(1L, 2L), itemSearchIndex.search("Р"));
+    }
+
+    @Test
+    void put_update_ok() {
+        when(itemRepository.findAll()).thenReturn(List.of(item(1L, owner, "Дрель", "Ударная", true)));
+        itemSearchIndex.warmUp();
+        itemSearchIndex.put(item(1L, owner, "Пила", "Ручная", true));
+        itemSearchIndex.put(item(2L, owner, "Дрель", "Новая", true));
+        assertEquals(List.of(2L), itemSearchIndex.search("дрель"));
+        assertEquals(List.of(1L), itemSearchIndex.search("пила"));
+        itemSearchIndex.put(item(1L, owner, "Пила", "Ручная", false));
+        assertEquals(List.of(), itemSearchIndex.search("пила"));
+    }
+
+    @Test
+    void put_during_warmUp_applied_after_snapshot() {
+        when(itemRepository.findAll()).thenAnswer(invocation -> {
+            itemSearchIndex.put(item(1L, owner, "Пила", "Ручная", true));
+            return List.of(item(1L, owner, "Дрель", "Ударная", true));
+        });
+        itemSearchIndex.warmUp();
+        assertEquals(List.of(), itemSearchIndex.search("дрель"));
+        assertEquals(List.of(1L), itemSearchIndex.search("пила"));
+    }
+
+    @Test
+    void remove_ok() {
+        when(itemRepository.findAll()).thenReturn(List.of(
+                item(1L, owner, "Дрель", "Ударная", true),
+                item(2L, otherOwner, "Дрель", "Ручная", true),
+                item(3L, owner, "Дрель", "Новая", true)));
+        itemSearchIndex.warmUp();
+        itemSearchIndex.remove(2L);
+        assertEquals(List.of(1L, 3L), itemSearchIndex.search("дрель"));
+        itemSearchIndex.removeOwner(owner.getId());
+        assertEquals(List.of(), itemSearchIndex.search("дрель"));
+        verify(itemRepository).findAll();
+    }
+
+    private Item item(long id, User owner, String name, String description, boolean available) {
+        return Item.builder().id(id).owner(owner).name(name).description(description).available(available).build();
+    }
+}
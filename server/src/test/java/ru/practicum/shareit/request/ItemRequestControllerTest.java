@@ -11,6 +11,7 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.invalidation.InvalidationBroadcaster;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.request.dto.RequestItemRequestDto;
@@ -45,6 +46,8 @@ class ItemRequestControllerTest {
     private BookingService bookingService;
     @MockBean
     private UserService userService;
+    @MockBean
+    private InvalidationBroadcaster invalidationBroadcaster;
 
     private final ObjectMapper mapper = new ObjectMapper();
 
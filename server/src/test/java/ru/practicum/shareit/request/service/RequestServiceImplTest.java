@@ -7,12 +7,14 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.modelmapper.ModelMapper;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import ru.practicum.shareit.booking.storage.BookingRepository;
 import ru.practicum.shareit.error.exceptions.BadRequestException;
 import ru.practicum.shareit.error.exceptions.NoContentException;
 import ru.practicum.shareit.item.comment.storage.CommentRepository;
+import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.item.storage.ItemRepository;
 import ru.practicum.shareit.request.dto.RequestItemRequestDto;
@@ -21,11 +23,15 @@ import ru.practicum.shareit.request.storage.RequestRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -45,6 +51,8 @@ class RequestServiceImplTest {
 
     @Mock
     private RequestRepository requestRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
     @InjectMocks
     private RequestServiceImpl requestService;
 
@@ -68,6 +76,19 @@ class RequestServiceImplTest {
         assertEquals(wait.get(0).getDescription(), ret.get(0).getDescription());
     }
 
+    @Test
+    @SneakyThrows
+    void getAll_linked_items_ok() {
+        RequestItem request = RequestItem.builder().id(id).description("x").build();
+        Item linked = Item.builder().id(2L).requestId(id).build();
+        when(userService.getUserById(id)).thenReturn(user);
+        when(requestRepository.findAllByRequesterNotInOrderByCreated(List.of(user))).thenReturn(List.of(request));
+        when(itemService.getAllByRequestIdIn(Set.of(id))).thenReturn(new ArrayList<>(List.of(linked)));
+        List<RequestItem> ret = requestService.getAll(id, Optional.empty(), Optional.empty());
+        assertEquals(List.of(linked), ret.get(0).getItems());
+        verify(itemService, never()).getAllByRequestIdNotNull();
+    }
+
     @Test
     @SneakyThrows
     void getAll_page_ok() {
@@ -11,20 +11,29 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.modelmapper.ModelMapper;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.practicum.shareit.booking.storage.BookingIntervalIndex;
 import ru.practicum.shareit.error.exceptions.BadRequestException;
 import ru.practicum.shareit.error.exceptions.NoContentException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemSearchIndex;
 import ru.practicum.shareit.user.dto.UserRequestDto;
 import ru.practicum.shareit.user.dto.UserResponseDto;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.storege.UserRepository;
 
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -34,6 +43,16 @@ class UserServiceImplTest {
     private UserRepository userRepository;
     @Mock
     private ModelMapper modelMapper;
+    @Mock
+    private BookingIntervalIndex bookingIndex;
+    @Mock
+    private ItemSearchIndex itemSearchIndex;
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+    @Mock
+    private Cache cache;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -129,7 +148,9 @@ class UserServiceImplTest {
                 .build();
         when(userService.isUserDataExist(userRequestDto1)).thenReturn(user1);
         when(userRepository.findById(userId)).thenReturn(Optional.of(user1));
+        when(entityManagerFactory.getCache()).thenReturn(cache);
         userService.updateUser(userId, userRequestDto1);
+        verify(cache).evict(User.class, userId);
 
         verify(userRepository)
                 .partialUpdate(emailArgumentCaptor.capture(), nameArgumentCaptor.capture(), idArgumentCaptor.capture());
@@ -148,4 +169,22 @@ class UserServiceImplTest {
         when(userRepository.findAll(sortById)).thenReturn(List.of(new User()));
         assertEquals(1, userService.getAllUsers().size());
     }
-}
\ No newline at end of file
+
+    @Test
+    @SneakyThrows
+    void getAllUsers_projection_ok() {
+        ReflectionTestUtils.setField(userService, "readMode", "projection");
+        when(userRepository.findAllResponseDto()).thenReturn(List.of(new UserResponseDto(1L, "a@a.a", "a")));
+        assertEquals(1, userService.getAllUsers().size());
+        verify(userRepository, never()).findAll(any(Sort.class));
+    }
+
+    @Test
+    @SneakyThrows
+    void delete_evicts_items() {
+        when(entityManagerFactory.getCache()).thenReturn(cache);
+        userService.delete(userId);
+        verify(userRepository).deleteAllById(Collections.singleton(userId));
+        verify(cache).evict(Item.class);
+    }
+}
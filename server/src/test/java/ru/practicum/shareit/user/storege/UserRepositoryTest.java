@@ -1,11 +1,15 @@
 package ru.practicum.shareit.user.storege;
 
+import org.hibernate.Session;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import ru.practicum.shareit.user.dto.UserResponseDto;
 import ru.practicum.shareit.user.model.User;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 @DataJpaTest
@@ -25,4 +29,15 @@ class UserRepositoryTest {
         );
     }
 
-}
\ No newline at end of file
+
+    @Test
+    void findAllResponseDto_ok() {
+        User first = userRepo.save(User.builder().email("a@a.a").name("a").build());
+        User second = userRepo.save(User.builder().email("b@b.b").name("b").build());
+        entityManager.getEntityManager().clear();
+        List<UserResponseDto> users = userRepo.findAllResponseDto();
+        assertEquals(List.of(first.getId(), second.getId()), List.of(users.get(0).getId(), users.get(1).getId()));
+        assertEquals("b@b.b", users.get(1).getEmail());
+        assertEquals(0, entityManager.getEntityManager().unwrap(Session.class).getStatistics().getEntityCount());
+    }
+}
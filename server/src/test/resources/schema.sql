@@ -5,6 +5,8 @@ CREATE TABLE IF NOT EXISTS users
     user_id   BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     email     CHARACTER varying(512) NOT NULL,
     user_name CHARACTER varying(50),
+    -- version в users, items, bookings, comments растет с каждым UPDATE строки, из него строится ETag
+    version   BIGINT DEFAULT 0 NOT NULL,
     CONSTRAINT users_email_unq UNIQUE (email)
 );
 
@@ -16,11 +18,15 @@ CREATE TABLE IF NOT EXISTS items
     description     CHARACTER varying(1024),
     available       boolean,
     request_id      BIGINT,
+    version         BIGINT DEFAULT 0 NOT NULL,
     CONSTRAINT items_to_users_fk
     FOREIGN KEY (owner_user_id)
         REFERENCES public.users (user_id) ON DELETE CASCADE
 );
 
+CREATE INDEX IF NOT EXISTS items_owner_idx ON items (owner_user_id);
+CREATE INDEX IF NOT EXISTS items_request_idx ON items (request_id);
+
 CREATE TABLE IF NOT EXISTS public.bookings
 (
     booking_id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
@@ -29,6 +35,7 @@ CREATE TABLE IF NOT EXISTS public.bookings
     date_from timestamp without time zone,
     date_end timestamp without time zone,
     status_id integer NOT NULL,
+    version bigint DEFAULT 0 NOT NULL,
     CONSTRAINT bookings_to_items_fk
     FOREIGN KEY (item_id)
         REFERENCES public.items (item_id) ON DELETE CASCADE,
@@ -37,6 +44,14 @@ CREATE TABLE IF NOT EXISTS public.bookings
             REFERENCES public.users (user_id) ON DELETE CASCADE
 );
 
+-- Ключ курсора страниц: (date_end, booking_id) по убыванию. Страницу арендатора индекс отдает сразу,
+-- для владельца bookings_item_end_idx только находит бронирования его вещей, сортировка - по всем
+CREATE INDEX IF NOT EXISTS bookings_booker_end_idx ON public.bookings (booker_user_id, date_end DESC, booking_id DESC);
+CREATE INDEX IF NOT EXISTS bookings_item_end_idx ON public.bookings (item_id, date_end DESC, booking_id DESC);
+CREATE INDEX IF NOT EXISTS bookings_item_status_from_idx ON public.bookings (item_id, status_id, date_from);
+-- Последнее бронирование вещи: обратный проход по date_end
+CREATE INDEX IF NOT EXISTS bookings_item_status_end_idx ON public.bookings (item_id, status_id, date_end);
+
 
 CREATE TABLE IF NOT EXISTS public.comments
 (
@@ -45,6 +60,7 @@ CREATE TABLE IF NOT EXISTS public.comments
     item_id bigint,
     author_id bigint,
     created timestamp without time zone,
+    version bigint DEFAULT 0 NOT NULL,
     CONSTRAINT comments_to_item_fk
         FOREIGN KEY (item_id) REFERENCES public.items (item_id)
         ON DELETE CASCADE,
@@ -53,6 +69,8 @@ CREATE TABLE IF NOT EXISTS public.comments
         ON DELETE CASCADE
 );
 
+CREATE INDEX IF NOT EXISTS comments_item_idx ON public.comments (item_id);
+
 
 CREATE TABLE IF NOT EXISTS public.requests
 (